@@ -5,11 +5,13 @@ import java.util.List;
 
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.stereotype.Component;
 
 import spotify.api.SpotifyDependenciesSettings;
 
 @SpringBootApplication
+@EnableScheduling
 public class SpotifyBigPicture {
 
   /**
@@ -2,11 +2,8 @@ package spotify.playback;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.Optional;
+import java.util.NoSuchElementException;
 import java.util.concurrent.CompletableFuture;
-import java.util.logging.Logger;
-
-import jakarta.annotation.PostConstruct;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -17,45 +14,38 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import spotify.config.SpotifyApiConfig;
 import spotify.playback.control.PlaybackControl;
+import spotify.playback.control.SettingsControl;
+import spotify.playback.data.PlaybackInfoDeltaProvider;
 import spotify.playback.data.PlaybackInfoProvider;
 import spotify.playback.data.dto.PlaybackInfo;
 import spotify.playback.data.dto.PlaybackInfoError;
 import spotify.playback.data.dto.PlaybackInfoResponse;
 import spotify.playback.data.dto.misc.BigPictureSetting;
 import spotify.playback.data.lyrics.GeniusLyricsScraper;
+import spotify.playback.stream.PlaybackInfoStreamService;
 
 @RestController
 public class PlaybackController {
-  private static final String DISABLE_PLAYBACK_CONTROLS_ENV_NAME = "disable_playback_controls";
-
   private final PlaybackInfoProvider playbackInfoProvider;
+  private final PlaybackInfoDeltaProvider playbackInfoDeltaProvider;
   private final PlaybackControl playbackControl;
+  private final SettingsControl settingsControl;
   private final SpotifyApiConfig spotifyApiConfig;
   private final GeniusLyricsScraper geniusLyrics;
+  private final PlaybackInfoStreamService playbackInfoStreamService;
 
-  private List<BigPictureSetting> bigPictureSettings;
-
-  private final boolean playbackControlsDisabled;
-  private final Logger logger = Logger.getLogger(PlaybackController.class.getName());
-
-  PlaybackController(PlaybackInfoProvider playbackInfoProvider, PlaybackControl playbackControl, SpotifyApiConfig spotifyApiConfig, GeniusLyricsScraper geniusLyrics) {
+  PlaybackController(PlaybackInfoProvider playbackInfoProvider, PlaybackInfoDeltaProvider playbackInfoDeltaProvider, PlaybackControl playbackControl, SettingsControl settingsControl, SpotifyApiConfig spotifyApiConfig, GeniusLyricsScraper geniusLyrics, PlaybackInfoStreamService playbackInfoStreamService) {
     this.playbackInfoProvider = playbackInfoProvider;
+    this.playbackInfoDeltaProvider = playbackInfoDeltaProvider;
     this.spotifyApiConfig = spotifyApiConfig;
     this.playbackControl = playbackControl;
+    this.settingsControl = settingsControl;
     this.geniusLyrics = geniusLyrics;
-
-    String env = System.getenv(DISABLE_PLAYBACK_CONTROLS_ENV_NAME);
-    this.playbackControlsDisabled = Boolean.parseBoolean(env);
-  }
-
-  @PostConstruct
-  void printPlaybackDisabledState() {
-    if (this.playbackControlsDisabled) {
-      logger.warning("Playback controls have been manually disabled with " + DISABLE_PLAYBACK_CONTROLS_ENV_NAME + "=true");
-    }
+    this.playbackInfoStreamService = playbackInfoStreamService;
   }
 
   ///////////////
@@ -69,17 +59,23 @@ public class PlaybackController {
   }
 
   /**
-   * Get the current playback info as a single request
+   * Get the current playback info as a single request. The data is served from a
+   * snapshot shared by all connected interfaces.
    *
    * @param v versionId provided by the interface
    *          to see if there actually were any updates
-   * @return a PlaybackInfoResponse (either the playback info or an error object)
+   * @param delta if true, only the changes since the given versionId are returned as JSON Merge Patch
+   *              (falls back to the full playback info if that version isn't known anymore)
+   * @return a PlaybackInfoResponse (either the playback info, a delta, or an error object)
    */
   @CrossOrigin
   @GetMapping("/playback-info")
-  public ResponseEntity<? extends PlaybackInfoResponse> getCurrentPlaybackInfo(@RequestParam int v) {
+  public ResponseEntity<? extends PlaybackInfoResponse> getCurrentPlaybackInfo(@RequestParam int v, @RequestParam(defaultValue = "false") boolean delta) {
     try {
       PlaybackInfo currentPlaybackInfo = playbackInfoProvider.getCurrentPlaybackInfo(v);
+      if (delta) {
+        return ResponseEntity.ok(playbackInfoDeltaProvider.toResponse(v, currentPlaybackInfo));
+      }
       return ResponseEntity.ok(currentPlaybackInfo);
     } catch (Exception e) {
       PlaybackInfoError playbackInfoError = new PlaybackInfoError(e);
@@ -87,6 +83,19 @@ public class PlaybackController {
     }
   }
 
+  /**
+   * Subscribe to the playback info as a stream of Server-Sent Events. A "playback-info" event
+   * is sent whenever the versionId changes, otherwise a lightweight "progress" heartbeat is sent
+   * with every tick of the polling loop.
+   *
+   * @return the event stream
+   */
+  @CrossOrigin
+  @GetMapping("/playback-info/stream")
+  public SseEmitter streamPlaybackInfo() {
+    return playbackInfoStreamService.subscribe();
+  }
+
   ///////////////
 
   /**
@@ -118,8 +127,9 @@ public class PlaybackController {
   @CrossOrigin
   @PostMapping("/modify-playback/{control}")
   public ResponseEntity<? extends PlaybackInfoResponse> modifyPlaybackState(@PathVariable String control, @RequestParam(required = false) String param) {
-    if (checkPlaybackControlsEnabled() && playbackControl.modifyPlaybackState(control, param)) {
-      return getCurrentPlaybackInfo(0);
+    if (playbackControl.checkPlaybackControlsEnabled() && playbackControl.modifyPlaybackState(control, param)) {
+      playbackInfoProvider.refreshPlaybackInfo();
+      return getCurrentPlaybackInfo(0, false);
     }
     return ResponseEntity.badRequest().build();
   }
@@ -138,7 +148,7 @@ public class PlaybackController {
   @CrossOrigin
   @PostMapping("/shutdown")
   public ResponseEntity<Void> shutdown(@RequestParam String logout) throws IOException {
-    if (checkPlaybackControlsEnabled()) {
+    if (playbackControl.checkPlaybackControlsEnabled()) {
       if (Boolean.parseBoolean(logout)) {
         spotifyApiConfig.logout();
       }
@@ -156,7 +166,7 @@ public class PlaybackController {
   @CrossOrigin
   @GetMapping("/settings")
   public ModelAndView createSettingsView() {
-    checkSettingAreSet();
+    settingsControl.checkSettingsAreSet();
     return new ModelAndView("/settings/settings.html");
   }
 
@@ -166,31 +176,9 @@ public class PlaybackController {
   @CrossOrigin
   @PostMapping("/settings/toggle/{settingId}")
   public ResponseEntity<BigPictureSetting> toggleSetting(@PathVariable String settingId) {
-    checkSettingAreSet();
-    if (settingId.startsWith("preset-") || settingId.equals("reload")) {
-      playbackInfoProvider.addSettingToToggleForNextPoll(settingId);
-      return ResponseEntity.ok(null);
-    } else if (settingId.startsWith("dark-mode-")) {
-      Optional<BigPictureSetting> darkModeSetting = this.bigPictureSettings.stream()
-        .filter(setting -> setting.getId().equals("dark-mode"))
-        .findFirst();
-      if (darkModeSetting.isPresent()) {
-        BigPictureSetting bigPictureSetting = darkModeSetting.get();
-        bigPictureSetting.setState(!bigPictureSetting.getState());
-        playbackInfoProvider.addSettingToToggleForNextPoll(settingId);
-        return ResponseEntity.ok(bigPictureSetting);
-      }
-      return ResponseEntity.notFound().build();
-    } else {
-      Optional<BigPictureSetting> settingToToggle = this.bigPictureSettings.stream()
-        .filter(setting -> setting.getId().equals(settingId))
-        .findFirst();
-      if (settingToToggle.isPresent()) {
-        BigPictureSetting bigPictureSetting = settingToToggle.get();
-        bigPictureSetting.setState(!bigPictureSetting.getState());
-        playbackInfoProvider.addSettingToToggleForNextPoll(settingId);
-        return ResponseEntity.ok(bigPictureSetting);
-      }
+    try {
+      return ResponseEntity.ok(settingsControl.toggleSetting(settingId));
+    } catch (NoSuchElementException e) {
       return ResponseEntity.notFound().build();
     }
   }
@@ -201,8 +189,7 @@ public class PlaybackController {
   @CrossOrigin
   @GetMapping("/settings/list")
   public ResponseEntity<List<BigPictureSetting>> getSettingsList() {
-    checkSettingAreSet();
-    return ResponseEntity.ok(bigPictureSettings);
+    return ResponseEntity.ok(settingsControl.getSettings());
   }
 
   /**
@@ -211,21 +198,7 @@ public class PlaybackController {
   @CrossOrigin
   @PostMapping("/settings/list")
   public ResponseEntity<String> setSettingsList(@RequestBody List<BigPictureSetting> bigPictureSettings) {
-    this.bigPictureSettings = bigPictureSettings;
+    settingsControl.setSettings(bigPictureSettings);
     return ResponseEntity.ok("Settings have been received!");
   }
-
-  private void checkSettingAreSet() {
-    if (bigPictureSettings == null) {
-      throw new IllegalStateException("Settings haven't been transmitted yet. Open the interface at least once.");
-    }
-  }
-
-  private boolean checkPlaybackControlsEnabled() {
-    if (playbackControlsDisabled) {
-      logger.warning("Playback controls have been manually disabled with " + DISABLE_PLAYBACK_CONTROLS_ENV_NAME + "=true");
-      return false;
-    }
-    return true;
-  }
 }
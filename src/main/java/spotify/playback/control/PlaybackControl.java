@@ -1,5 +1,9 @@
 package spotify.playback.control;
 
+import java.util.logging.Logger;
+
+import jakarta.annotation.PostConstruct;
+
 import org.springframework.stereotype.Component;
 
 import se.michaelthelin.spotify.SpotifyApi;
@@ -8,6 +12,8 @@ import spotify.api.SpotifyCall;
 
 @Component
 public class PlaybackControl {
+  private static final String DISABLE_PLAYBACK_CONTROLS_ENV_NAME = "disable_playback_controls";
+
   private enum ControlOption {
     PLAY_PAUSE,
     SHUFFLE,
@@ -19,8 +25,34 @@ public class PlaybackControl {
 
   private final SpotifyApi spotifyApi;
 
+  private final boolean playbackControlsDisabled;
+  private final Logger logger = Logger.getLogger(PlaybackControl.class.getName());
+
   PlaybackControl(SpotifyApi spotifyApi) {
     this.spotifyApi = spotifyApi;
+
+    String env = System.getenv(DISABLE_PLAYBACK_CONTROLS_ENV_NAME);
+    this.playbackControlsDisabled = Boolean.parseBoolean(env);
+  }
+
+  @PostConstruct
+  void printPlaybackDisabledState() {
+    if (this.playbackControlsDisabled) {
+      logger.warning("Playback controls have been manually disabled with " + DISABLE_PLAYBACK_CONTROLS_ENV_NAME + "=true");
+    }
+  }
+
+  /**
+   * Check whether the playback controls haven't been disabled via environment variable.
+   *
+   * @return true if playback controls are allowed
+   */
+  public boolean checkPlaybackControlsEnabled() {
+    if (playbackControlsDisabled) {
+      logger.warning("Playback controls have been manually disabled with " + DISABLE_PLAYBACK_CONTROLS_ENV_NAME + "=true");
+      return false;
+    }
+    return true;
   }
 
   /**
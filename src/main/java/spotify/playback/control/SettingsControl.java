@@ -0,0 +1,66 @@
+package spotify.playback.control;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.springframework.stereotype.Component;
+
+import spotify.playback.data.PlaybackInfoProvider;
+import spotify.playback.data.dto.misc.BigPictureSetting;
+
+@Component
+public class SettingsControl {
+  private final PlaybackInfoProvider playbackInfoProvider;
+
+  private List<BigPictureSetting> bigPictureSettings;
+
+  SettingsControl(PlaybackInfoProvider playbackInfoProvider) {
+    this.playbackInfoProvider = playbackInfoProvider;
+  }
+
+  /**
+   * Toggle the given setting and forward it to the interfaces with the next update.
+   *
+   * @param settingId the ID of the setting (or a preset/the reload command)
+   * @return the toggled setting, null for presets and the reload command
+   * @throws IllegalStateException if the settings haven't been transmitted yet
+   * @throws NoSuchElementException if there is no setting with the given ID
+   */
+  public BigPictureSetting toggleSetting(String settingId) {
+    checkSettingsAreSet();
+    if (settingId.startsWith("preset-") || settingId.equals("reload")) {
+      playbackInfoProvider.addSettingToToggleForNextPoll(settingId);
+      return null;
+    }
+    String stateSettingId = settingId.startsWith("dark-mode-") ? "dark-mode" : settingId;
+    BigPictureSetting bigPictureSetting = this.bigPictureSettings.stream()
+      .filter(setting -> setting.getId().equals(stateSettingId))
+      .findFirst()
+      .orElseThrow();
+    bigPictureSetting.setState(!bigPictureSetting.getState());
+    playbackInfoProvider.addSettingToToggleForNextPoll(settingId);
+    return bigPictureSetting;
+  }
+
+  /**
+   * @return the currently set list of settings
+   * @throws IllegalStateException if the settings haven't been transmitted yet
+   */
+  public List<BigPictureSetting> getSettings() {
+    checkSettingsAreSet();
+    return bigPictureSettings;
+  }
+
+  public void setSettings(List<BigPictureSetting> bigPictureSettings) {
+    this.bigPictureSettings = bigPictureSettings;
+  }
+
+  /**
+   * @throws IllegalStateException if the settings haven't been transmitted yet
+   */
+  public void checkSettingsAreSet() {
+    if (bigPictureSettings == null) {
+      throw new IllegalStateException("Settings haven't been transmitted yet. Open the interface at least once.");
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package spotify.playback.data;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import spotify.playback.data.dto.PlaybackInfo;
+import spotify.playback.data.dto.PlaybackInfoDelta;
+import spotify.playback.data.dto.PlaybackInfoResponse;
+
+/**
+ * Creates JSON Merge Patches between recently served playback info snapshots, so that interfaces
+ * only receive the changed subtrees (e.g. just the paused state) instead of the full tracklist and queue.
+ */
+@Component
+public class PlaybackInfoDeltaProvider {
+  private static final int HISTORY_SIZE = 8;
+  private static final String CURRENTLY_PLAYING = "currentlyPlaying";
+  private static final String TIME_CURRENT = "timeCurrent";
+
+  private final ObjectMapper objectMapper;
+
+  /**
+   * The JSON trees of the most recently served snapshots, by versionId. The progress changes with every tick
+   * without changing the versionId, so it's left out here and patched into every response individually.
+   */
+  private final Map<Integer, JsonNode> history;
+
+  /**
+   * Patches already computed for the newest snapshot, by base versionId (most interfaces share the same base)
+   */
+  private final Map<Integer, ObjectNode> patchesForLatest;
+  private int latestVersionId;
+
+  PlaybackInfoDeltaProvider() {
+    this.objectMapper = new ObjectMapper();
+    this.history = new LinkedHashMap<>() {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, JsonNode> eldest) {
+        return size() > HISTORY_SIZE;
+      }
+    };
+    this.patchesForLatest = new HashMap<>();
+  }
+
+  /**
+   * Convert the given playback info into the smallest response for an interface that currently has the given version.
+   *
+   * @param baseVersionId the versionId the interface currently has
+   * @param current the playback info to transmit
+   * @return a delta if the base version is still known, the full playback info otherwise
+   */
+  public synchronized PlaybackInfoResponse toResponse(int baseVersionId, PlaybackInfo current) {
+    if (!current.hasPayload() || !current.getSettingsToToggle().isEmpty()) {
+      // Copies with settings to toggle are one-offs and never act as a base
+      return current;
+    }
+    int versionId = current.getVersionId();
+    if (versionId != latestVersionId) {
+      patchesForLatest.clear();
+      latestVersionId = versionId;
+    }
+    JsonNode currentTree = history.computeIfAbsent(versionId, v -> toTreeWithoutProgress(current));
+    JsonNode baseTree = history.get(baseVersionId);
+    if (baseTree == null || baseVersionId == versionId) {
+      return current;
+    }
+    ObjectNode patch = patchesForLatest.computeIfAbsent(baseVersionId, v -> (ObjectNode) createMergePatch(baseTree, currentTree)).deepCopy();
+    Integer timeCurrent = current.getCurrentlyPlaying().getTimeCurrent();
+    if (timeCurrent != null) {
+      JsonNode currentlyPlayingPatch = patch.get(CURRENTLY_PLAYING);
+      ObjectNode progressPatch = currentlyPlayingPatch != null && currentlyPlayingPatch.isObject()
+        ? (ObjectNode) currentlyPlayingPatch
+        : patch.putObject(CURRENTLY_PLAYING);
+      progressPatch.put(TIME_CURRENT, timeCurrent);
+    }
+    return new PlaybackInfoDelta(baseVersionId, versionId, patch.toString());
+  }
+
+  private JsonNode toTreeWithoutProgress(PlaybackInfo playbackInfo) {
+    JsonNode tree = objectMapper.valueToTree(playbackInfo);
+    JsonNode currentlyPlaying = tree.get(CURRENTLY_PLAYING);
+    if (currentlyPlaying != null && currentlyPlaying.isObject()) {
+      ((ObjectNode) currentlyPlaying).remove(TIME_CURRENT);
+    }
+    return tree;
+  }
+
+  /**
+   * Create a JSON Merge Patch (RFC 7396) that turns the source into the target.
+   * Objects are diffed recursively, everything else (including arrays) is replaced as a whole.
+   */
+  static JsonNode createMergePatch(JsonNode source, JsonNode target) {
+    if (!source.isObject() || !target.isObject()) {
+      return target;
+    }
+    ObjectNode patch = JsonNodeFactory.instance.objectNode();
+    for (Iterator<String> itr = source.fieldNames(); itr.hasNext(); ) {
+      String fieldName = itr.next();
+      if (!target.has(fieldName)) {
+        patch.putNull(fieldName);
+      }
+    }
+    for (Iterator<Map.Entry<String, JsonNode>> itr = target.fields(); itr.hasNext(); ) {
+      Map.Entry<String, JsonNode> field = itr.next();
+      JsonNode sourceValue = source.get(field.getKey());
+      if (sourceValue == null) {
+        patch.set(field.getKey(), field.getValue());
+      } else if (!sourceValue.equals(field.getValue())) {
+        patch.set(field.getKey(), createMergePatch(sourceValue, field.getValue()));
+      }
+    }
+    return patch;
+  }
+}
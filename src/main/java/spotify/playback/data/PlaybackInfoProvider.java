@@ -2,13 +2,30 @@ package spotify.playback.data;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import de.selbi.colorfetch.data.ColorFetchResult;
@@ -25,15 +42,19 @@ import spotify.api.SpotifyCall;
 import spotify.api.events.SpotifyApiException;
 import spotify.api.events.SpotifyApiLoggedInEvent;
 import spotify.playback.data.dto.PlaybackInfo;
+import spotify.playback.data.dto.PlaybackProgress;
 import spotify.playback.data.dto.sub.CurrentlyPlaying;
 import spotify.playback.data.dto.sub.ImageData;
 import spotify.playback.data.dto.sub.PlaybackContext;
 import spotify.playback.data.dto.sub.TrackData;
 import spotify.playback.data.dto.sub.TrackElement;
+import spotify.playback.data.events.ArtworkResolvedEvent;
+import spotify.playback.data.events.PlaybackInfoRefreshedEvent;
 import spotify.playback.data.help.BigPictureConstants;
 import spotify.playback.data.help.BigPictureUtils;
 import spotify.playback.data.help.CustomVolumeSettingsProvider;
 import spotify.playback.data.visual.ContextProvider;
+import spotify.playback.data.visual.ContextSnapshot;
 import spotify.playback.data.visual.artwork.ArtworkUrlCache;
 import spotify.playback.data.visual.color.ColorProviderService;
 import spotify.spring.SpringPortConfig;
@@ -43,41 +64,79 @@ import spotify.util.SpotifyUtils;
 public class PlaybackInfoProvider {
   private static final int QUEUE_FALLBACK_THRESHOLD = 200;
   private static final int QUEUE_EXPECTED_SIZE = 20;
+  private static final int LIST_TRACKS_WINDOW_STEP = 50;
+  private static final long DEFAULT_POLLING_INTERVAL_MS = 2 * 1000;
+  private static final int ACTIVE_CLIENT_TIMEOUT_FACTOR = 3;
+  private static final int STAGE_THREADS = 2;
+  private static final long CONTEXT_STAGE_DEADLINE_MS = 3 * 1000;
+  private static final long ARTWORK_REFRESH_DELAY_MS = 250;
 
   private final SpotifyApi spotifyApi;
+  private final ApplicationEventPublisher eventPublisher;
   private final ContextProvider contextProvider;
   private final ArtworkUrlCache artworkUrlCache;
   private final ColorProviderService dominantColorProvider;
+  private final QueuePrefetcher queuePrefetcher;
 
   private final Logger logger = Logger.getLogger(PlaybackInfoProvider.class.getName());
 
+  @Value("${playback.polling.interval:" + DEFAULT_POLLING_INTERVAL_MS + "}")
+  private long pollingIntervalMs;
+
   private PlaybackInfo previous;
+  private List<TrackElement> windowSourceTracks;
+  private List<TrackElement> windowListTracks;
+  private int windowOffset;
+  private volatile PlaybackInfo snapshot;
+  private volatile long snapshotTimestamp;
+  private volatile long lastClientActivity;
+  private int sectionVersionCounter;
   private long deployTime;
   private boolean ready;
 
   private boolean queueEnabled;
 
+  private final ExecutorService stageExecutor;
+  private final Map<String, CompletableFuture<?>> pendingStages;
+
+  private final ScheduledExecutorService artworkRefreshScheduler;
+  private final AtomicBoolean artworkRefreshScheduled;
+  private volatile Set<String> awaitedArtworkKeys;
+  private Set<String> builtAwaitedArtworkKeys;
+
   private final Set<String> settingsToToggle;
   private final List<PlaybackInfo.CustomVolumeSettings> customVolumeSettings;
 
   private final int port;
 
   PlaybackInfoProvider(SpotifyApi spotifyApi,
+      ApplicationEventPublisher eventPublisher,
       ContextProvider contextProvider,
       ArtworkUrlCache artworkUrlCache,
       ColorProviderService colorProvider,
+      QueuePrefetcher queuePrefetcher,
       CustomVolumeSettingsProvider customVolumeSettingsProvider,
       SpringPortConfig springPortConfig) {
     this.spotifyApi = spotifyApi;
+    this.eventPublisher = eventPublisher;
     this.contextProvider = contextProvider;
     this.artworkUrlCache = artworkUrlCache;
     this.dominantColorProvider = colorProvider;
+    this.queuePrefetcher = queuePrefetcher;
     this.ready = false;
     this.queueEnabled = true;
+    this.stageExecutor = Executors.newFixedThreadPool(STAGE_THREADS);
+    this.pendingStages = new ConcurrentHashMap<>();
+    this.artworkRefreshScheduler = Executors.newSingleThreadScheduledExecutor();
+    this.artworkRefreshScheduled = new AtomicBoolean(false);
+    this.awaitedArtworkKeys = Set.of();
     this.settingsToToggle = new HashSet<>();
     this.customVolumeSettings = customVolumeSettingsProvider.getCustomVolumeSettings();
     this.port = springPortConfig.getPort();
     refreshDeployTime();
+
+    // Start the version counter relative to the deploy time, so that versionIds of a previous run are never reused
+    this.sectionVersionCounter = Math.floorMod(deployTime / 1000, Integer.MAX_VALUE / 2);
   }
 
   @EventListener(SpotifyApiLoggedInEvent.class)
@@ -100,85 +159,320 @@ public class PlaybackInfoProvider {
     ready = true;
   }
 
+  /**
+   * Upgrade the current snapshot as soon as a background lookup (HD artwork, colors or the context thumbnail)
+   * has finished that the snapshot is still waiting for, rather than waiting for the next tick. Results for
+   * anything else (e.g. prefetched queue items) are ignored. The refresh is handed to a scheduler, so the thread
+   * that published the event isn't blocked, and a burst of results is coalesced into a single refresh.
+   */
+  @EventListener(ArtworkResolvedEvent.class)
+  public void onArtworkResolved(ArtworkResolvedEvent event) {
+    if (ready && hasActiveClients() && awaitedArtworkKeys.contains(event.getArtworkKey()) && artworkRefreshScheduled.compareAndSet(false, true)) {
+      artworkRefreshScheduler.schedule(this::refreshAfterArtworkResolved, ARTWORK_REFRESH_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void refreshAfterArtworkResolved() {
+    // Cleared before the refresh, so that results arriving in the meantime schedule another one
+    artworkRefreshScheduled.set(false);
+    try {
+      refreshPlaybackInfo();
+    } catch (Exception e) {
+      logger.warning("Failed to refresh playback info: " + e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  void shutdownStageExecutor() {
+    stageExecutor.shutdownNow();
+    artworkRefreshScheduler.shutdownNow();
+  }
+
   public void refreshDeployTime() {
     this.deployTime = System.currentTimeMillis();
   }
 
   public void addSettingToToggleForNextPoll(String settingId) {
-    settingsToToggle.add(settingId);
+    synchronized (settingsToToggle) {
+      settingsToToggle.add(settingId);
+    }
   }
 
+  /**
+   * Get the latest playback info snapshot for a connected interface. The snapshot itself is shared
+   * between all displays and only rebuilt by the polling loop, so the number of Spotify calls doesn't
+   * grow with the number of connected clients.
+   *
+   * @param previousVersionId the versionId the interface currently has
+   * @return the snapshot if it differs from the given version (or settings need to be toggled), EMPTY otherwise
+   */
   public PlaybackInfo getCurrentPlaybackInfo(int previousVersionId) {
+    registerClientActivity();
     if (ready) {
-      CurrentlyPlayingContext currentlyPlayingContext = SpotifyCall.execute(spotifyApi.getInformationAboutUsersCurrentPlayback().additionalTypes("episode"));
-      if (currentlyPlayingContext != null && currentlyPlayingContext.getItem() != null) {
-        PlaybackQueue playbackQueue = null;
-        if (queueEnabled) {
-          playbackQueue = SpotifyCall.execute(spotifyApi.getTheUsersQueue());
-
-          if (playbackQueue == null || playbackQueue.getCurrentlyPlaying() == null) {
-            // Edge case for local files
-            PlaybackQueue.Builder builder = new PlaybackQueue.Builder();
-            builder.setCurrentlyPlaying(currentlyPlayingContext.getItem());
-            builder.setQueue(playbackQueue != null ? playbackQueue.getQueue() : List.of());
-            playbackQueue = builder.build();
-          } else if (currentlyPlayingContext.getItem().getId() != null && playbackQueue.getCurrentlyPlaying() != null && !Objects.equals(currentlyPlayingContext.getItem().getId(), playbackQueue.getCurrentlyPlaying().getId())) {
-            // If the currently playing song in the queue doesn't match the currently playing context's song, the endpoints have gotten out of sync
-            // It's a hackish solution, but the only way I can feasibly avoid this problem is to force the user to re-request until a match arrives
-            return getCurrentPlaybackInfo(previousVersionId);
-          } else if (previous != null && previous.getTrackData().getQueue().size() == QUEUE_EXPECTED_SIZE && playbackQueue.getQueue() != null && playbackQueue.getQueue().size() < QUEUE_EXPECTED_SIZE) {
-            // For some bizarre reason, Spotify sometimes only returns a small chunk of the queue
-            // If that happens, pretend that no new data arrived to avoid spamming the frontend with pointless tracklist re-renders
-            List<TrackElement> previousQueue = previous.getTrackData().getQueue();
-            List<IPlaylistItem> newQueue = playbackQueue.getQueue();
-            boolean startsWith = true;
-            for (int i = 0; i < newQueue.size(); i++) {
-              if (!Objects.equals(previousQueue.get(i).getId(), newQueue.get(i).getId())) {
-                startsWith = false;
-                break;
-              }
-            }
-            if (startsWith) {
-              return PlaybackInfo.EMPTY;
+      refreshPlaybackInfoIfOutdated();
+      PlaybackInfo settingsUpdate = takeSettingsToToggle();
+      if (settingsUpdate != null) {
+        return settingsUpdate;
+      }
+      PlaybackInfo current = this.snapshot;
+      if (current != null && current.hasPayload() && current.getVersionId() != previousVersionId) {
+        return current;
+      }
+    }
+    return PlaybackInfo.EMPTY;
+  }
+
+  /**
+   * Get the current snapshot as it is, without refreshing it or taking any settings to toggle.
+   * Streaming interfaces are pushed every refresh anyway, so they only ever need to read it.
+   *
+   * @return the snapshot, EMPTY if there is none yet
+   */
+  public PlaybackInfo getSnapshot() {
+    PlaybackInfo current = this.snapshot;
+    return current != null ? current : PlaybackInfo.EMPTY;
+  }
+
+  /**
+   * Refresh the snapshot if no client was connected for a while, in which case the polling loop has been sleeping.
+   *
+   * @return true if the snapshot was refreshed (and with it pushed to all streaming interfaces)
+   */
+  public boolean refreshPlaybackInfoIfOutdated() {
+    if (ready && isSnapshotOutdated()) {
+      refreshPlaybackInfo();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Take all pending settings to toggle. They are only ever handed out once, attached to a copy of the current snapshot.
+   *
+   * @return the copy of the snapshot with the settings to toggle, null if there are none (or no snapshot yet)
+   */
+  public PlaybackInfo takeSettingsToToggle() {
+    PlaybackInfo current = this.snapshot;
+    if (current != null && current.hasPayload()) {
+      List<String> settings = drainSettingsToToggle();
+      if (!settings.isEmpty()) {
+        return copyWithSettingsToToggle(current, settings);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Shared polling loop. Builds a single playback info snapshot per tick, which is then served from
+   * memory to every display. Sleeps while no interface has requested any data recently.
+   */
+  @Scheduled(fixedDelayString = "${playback.polling.interval:" + DEFAULT_POLLING_INTERVAL_MS + "}")
+  public void pollingTick() {
+    if (ready && hasActiveClients()) {
+      try {
+        refreshPlaybackInfo();
+      } catch (Exception e) {
+        logger.warning("Failed to refresh playback info: " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Immediately rebuild the shared playback info snapshot (e.g. after the playback state was modified).
+   */
+  public void refreshPlaybackInfo() {
+    synchronized (this) {
+      builtAwaitedArtworkKeys = Set.of();
+      PlaybackInfo playbackInfo = buildCurrentPlaybackInfo();
+      if (playbackInfo != null) {
+        this.snapshot = playbackInfo;
+        this.awaitedArtworkKeys = builtAwaitedArtworkKeys;
+      }
+      this.snapshotTimestamp = System.currentTimeMillis();
+    }
+    eventPublisher.publishEvent(new PlaybackInfoRefreshedEvent(this));
+  }
+
+  /**
+   * Get the progress of the current snapshot, used as heartbeat for streaming interfaces.
+   *
+   * @return the progress, null if there is no playback info yet
+   */
+  public PlaybackProgress getCurrentProgress() {
+    PlaybackInfo current = this.snapshot;
+    if (current != null && current.hasPayload()) {
+      return new PlaybackProgress(current.getVersionId(), current.getCurrentlyPlaying().getTimeCurrent());
+    }
+    return null;
+  }
+
+  /**
+   * Mark that at least one interface is currently connected, which keeps the polling loop running.
+   */
+  public void registerClientActivity() {
+    this.lastClientActivity = System.currentTimeMillis();
+  }
+
+  private boolean hasActiveClients() {
+    return System.currentTimeMillis() - lastClientActivity < pollingIntervalMs * ACTIVE_CLIENT_TIMEOUT_FACTOR;
+  }
+
+  private boolean isSnapshotOutdated() {
+    return snapshot == null || System.currentTimeMillis() - snapshotTimestamp > pollingIntervalMs * 2;
+  }
+
+  private List<String> drainSettingsToToggle() {
+    synchronized (settingsToToggle) {
+      if (settingsToToggle.isEmpty()) {
+        return List.of();
+      }
+      List<String> settings = List.copyOf(settingsToToggle);
+      settingsToToggle.clear();
+      return settings;
+    }
+  }
+
+  /**
+   * Copy the given snapshot and attach the given settings to toggle to it. The snapshot itself is shared, so it's never modified.
+   *
+   * @param playbackInfo the snapshot
+   * @param settings     the settings to toggle
+   * @return the copy
+   */
+  public PlaybackInfo copyWithSettingsToToggle(PlaybackInfo playbackInfo, List<String> settings) {
+    PlaybackInfo copy = new PlaybackInfo(playbackInfo.getType(), false);
+    copy.setDeployTime(playbackInfo.getDeployTime());
+    copy.setVersionId(playbackInfo.getVersionId());
+    copy.setCurrentlyPlaying(playbackInfo.getCurrentlyPlaying());
+    copy.setPlaybackContext(playbackInfo.getPlaybackContext());
+    copy.setTrackData(playbackInfo.getTrackData());
+    copy.setCustomVolumeSettings(playbackInfo.getCustomVolumeSettings());
+    copy.setSettingsToToggle(settings);
+    return copy;
+  }
+
+  /**
+   * Build a fresh playback info from the Spotify API.
+   *
+   * @return the new info, or null if the current snapshot should be kept for this tick
+   */
+  private PlaybackInfo buildCurrentPlaybackInfo() {
+    CurrentlyPlayingContext currentlyPlayingContext = SpotifyCall.execute(spotifyApi.getInformationAboutUsersCurrentPlayback().additionalTypes("episode"));
+    if (currentlyPlayingContext != null && currentlyPlayingContext.getItem() != null) {
+      PlaybackQueue playbackQueue = null;
+      if (queueEnabled) {
+        playbackQueue = SpotifyCall.execute(spotifyApi.getTheUsersQueue());
+
+        if (playbackQueue == null || playbackQueue.getCurrentlyPlaying() == null) {
+          // Edge case for local files
+          PlaybackQueue.Builder builder = new PlaybackQueue.Builder();
+          builder.setCurrentlyPlaying(currentlyPlayingContext.getItem());
+          builder.setQueue(playbackQueue != null ? playbackQueue.getQueue() : List.of());
+          playbackQueue = builder.build();
+        } else if (currentlyPlayingContext.getItem().getId() != null && playbackQueue.getCurrentlyPlaying() != null && !Objects.equals(currentlyPlayingContext.getItem().getId(), playbackQueue.getCurrentlyPlaying().getId())) {
+          // If the currently playing song in the queue doesn't match the currently playing context's song, the endpoints have gotten out of sync
+          // Keep the current snapshot and simply try again with the next tick until a match arrives
+          return null;
+        } else if (previous != null && previous.getTrackData().getQueue().size() == QUEUE_EXPECTED_SIZE && playbackQueue.getQueue() != null && playbackQueue.getQueue().size() < QUEUE_EXPECTED_SIZE) {
+          // For some bizarre reason, Spotify sometimes only returns a small chunk of the queue
+          // If that happens, pretend that no new data arrived to avoid spamming the frontend with pointless tracklist re-renders
+          List<TrackElement> previousQueue = previous.getTrackData().getQueue();
+          List<IPlaylistItem> newQueue = playbackQueue.getQueue();
+          boolean startsWith = true;
+          for (int i = 0; i < newQueue.size(); i++) {
+            if (!Objects.equals(previousQueue.get(i).getId(), newQueue.get(i).getId())) {
+              startsWith = false;
+              break;
             }
           }
+          if (startsWith) {
+            return null;
+          }
         }
-        if (playbackQueue == null) {
-          playbackQueue = createFakePlaybackQueueWithoutQueue(currentlyPlayingContext);
+      }
+      if (playbackQueue == null) {
+        playbackQueue = createFakePlaybackQueueWithoutQueue(currentlyPlayingContext);
+      }
+      if (playbackQueue.getCurrentlyPlaying() != null && currentlyPlayingContext.getItem() != null) {
+        PlaybackInfo currentPlaybackInfo;
+        ModelObjectType type = playbackQueue.getCurrentlyPlaying().getType();
+        if (currentlyPlayingContext.getItem() != null && !Objects.equals(playbackQueue.getCurrentlyPlaying().getId(), currentlyPlayingContext.getItem().getId())) {
+          type = ModelObjectType.TRACK;
         }
-        if (playbackQueue.getCurrentlyPlaying() != null && currentlyPlayingContext.getItem() != null) {
-          PlaybackInfo currentPlaybackInfo;
-          ModelObjectType type = playbackQueue.getCurrentlyPlaying().getType();
-          if (currentlyPlayingContext.getItem() != null && !Objects.equals(playbackQueue.getCurrentlyPlaying().getId(), currentlyPlayingContext.getItem().getId())) {
-            type = ModelObjectType.TRACK;
-          }
-          switch (type) {
-            case TRACK:
-              currentPlaybackInfo = buildInfoTrack(playbackQueue, currentlyPlayingContext);
-              break;
-            case EPISODE:
-              currentPlaybackInfo = buildInfoEpisode(playbackQueue, currentlyPlayingContext);
-              break;
-            default:
-              throw new IllegalStateException("Unknown ModelObjectType: " + type);
-          }
-          try {
-            if (previous == null || isSeekedSong(currentPlaybackInfo) || currentPlaybackInfo.hashCode() != previousVersionId || !settingsToToggle.isEmpty()) {
-              if (!settingsToToggle.isEmpty()) {
-                currentPlaybackInfo.setSettingsToToggle(List.copyOf(settingsToToggle));
-                settingsToToggle.clear();
-              }
-              return currentPlaybackInfo;
-            }
-          } finally {
-            this.previous = currentPlaybackInfo;
-          }
+        switch (type) {
+          case TRACK:
+            currentPlaybackInfo = buildInfoTrack(playbackQueue, currentlyPlayingContext);
+            break;
+          case EPISODE:
+            currentPlaybackInfo = buildInfoEpisode(playbackQueue, currentlyPlayingContext);
+            break;
+          default:
+            throw new IllegalStateException("Unknown ModelObjectType: " + type);
+        }
+        if (currentPlaybackInfo == null) {
+          // At least one required stage didn't finish in time, keep the current snapshot for this tick
+          return null;
         }
+        assignSectionVersions(currentPlaybackInfo, previous);
+        this.previous = currentPlaybackInfo;
+        return currentPlaybackInfo;
       }
     }
     return PlaybackInfo.EMPTY;
   }
 
+  /**
+   * Give every section of the new playback info a structural version. Sections that are equal to the ones
+   * of the previous snapshot keep their version, changed ones get a new one from a monotonic counter.
+   * This is done only once per tick. Unchanged tracklists are the very same list instances as in the context
+   * snapshot (and windows of gigantic playlists are reused, see {@link #applyListTracksWindow}), so comparing
+   * them is an identity check. The queue however is rebuilt on every tick and compared element by element,
+   * which is cheap as it holds at most {@link #QUEUE_EXPECTED_SIZE} tracks. The versionId is then simply the
+   * newest section version, so comparing it to the versionId of an interface is constant time.
+   */
+  private void assignSectionVersions(PlaybackInfo current, PlaybackInfo previous) {
+    boolean hasPrevious = previous != null && previous.hasPayload();
+
+    CurrentlyPlaying currentlyPlaying = current.getCurrentlyPlaying();
+    ImageData imageData = currentlyPlaying.getImageData();
+    imageData.setVersion(hasPrevious
+      ? reuseOrNextSectionVersion(imageData, previous.getCurrentlyPlaying().getImageData(), ImageData::getVersion)
+      : nextSectionVersion());
+
+    // A manual seek needs to reach the interfaces even if nothing else has changed
+    currentlyPlaying.setVersion(hasPrevious && !isSeekedSong(current)
+      ? reuseOrNextSectionVersion(currentlyPlaying, previous.getCurrentlyPlaying(), CurrentlyPlaying::getVersion)
+      : nextSectionVersion());
+
+    PlaybackContext playbackContext = current.getPlaybackContext();
+    playbackContext.setVersion(hasPrevious
+      ? reuseOrNextSectionVersion(playbackContext, previous.getPlaybackContext(), PlaybackContext::getVersion)
+      : nextSectionVersion());
+
+    TrackData trackData = current.getTrackData();
+    if (trackData.getNextImageData() != null) {
+      trackData.getNextImageData().setVersion(hasPrevious
+        ? reuseOrNextSectionVersion(trackData.getNextImageData(), previous.getTrackData().getNextImageData(), ImageData::getVersion)
+        : nextSectionVersion());
+    }
+    trackData.setVersion(hasPrevious
+      ? reuseOrNextSectionVersion(trackData, previous.getTrackData(), TrackData::getVersion)
+      : nextSectionVersion());
+
+    current.setVersionId(Math.max(Math.max(currentlyPlaying.getVersion(), playbackContext.getVersion()), Math.max(trackData.getVersion(), imageData.getVersion())));
+  }
+
+  private <T> int reuseOrNextSectionVersion(T section, T previousSection, ToIntFunction<T> versionGetter) {
+    if (previousSection != null && section.equals(previousSection)) {
+      return versionGetter.applyAsInt(previousSection);
+    }
+    return nextSectionVersion();
+  }
+
+  private int nextSectionVersion() {
+    return ++sectionVersionCounter;
+  }
+
   private PlaybackQueue createFakePlaybackQueueWithoutQueue(CurrentlyPlayingContext currentlyPlayingContext) {
     PlaybackQueue.Builder builder = new PlaybackQueue.Builder();
     builder.setCurrentlyPlaying(currentlyPlayingContext.getItem());
@@ -198,6 +492,47 @@ public class PlaybackInfoProvider {
     return true;
   }
 
+  /**
+   * Start an assembly stage on the stage executor. If a stage with the same key is still running from a previous
+   * tick (because it missed its deadline back then), that one is reused instead of starting the work again.
+   * Finished stages are never reused, so every tick works with a result for its own snapshot.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> CompletableFuture<T> startStage(String stageKey, Supplier<T> task) {
+    CompletableFuture<?> runningStage = pendingStages.get(stageKey);
+    if (runningStage != null && !runningStage.isDone()) {
+      return (CompletableFuture<T>) runningStage;
+    }
+    CompletableFuture<T> stage = CompletableFuture.supplyAsync(task, stageExecutor);
+    pendingStages.put(stageKey, stage);
+    // Only registered once the stage is in the map, so even a stage that finishes right away is removed again
+    stage.whenComplete((result, e) -> pendingStages.remove(stageKey, stage));
+    return stage;
+  }
+
+  /**
+   * Wait for an assembly stage until the given deadline. A stage that misses its deadline keeps running in the
+   * background, so the next tick either picks it up again or (if it has finished by then) quickly gets the
+   * data it has left in the context cache. A late context stage that has been superseded by a newer one
+   * doesn't publish its snapshot anymore (see {@link ContextProvider#findContextName}).
+   *
+   * @return the stage's result, or the fallback if it didn't finish in time or failed
+   */
+  private <T> T awaitStage(CompletableFuture<T> stage, long deadline, T fallback) {
+    try {
+      return stage.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      // Expected every now and then (e.g. a large context on a slow connection), so not worth a stack trace
+      return fallback;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return fallback;
+    } catch (ExecutionException e) {
+      e.printStackTrace();
+      return fallback;
+    }
+  }
+
   private PlaybackInfo buildBaseInfo(PlaybackQueue playbackQueue, CurrentlyPlayingContext context) {
     IPlaylistItem currentTrack = playbackQueue.getCurrentlyPlaying();
     if (context.getItem() != null && !Objects.equals(currentTrack.getId(), context.getItem().getId())) {
@@ -220,20 +555,34 @@ public class PlaybackInfoProvider {
     currentlyPlaying.setTrackNumber(1);
     currentlyPlaying.setDiscNumber(0);
 
-    ImageData imageData = currentlyPlaying.getImageData();
+    // The context lookup is the only slow call that involves the Spotify API, so it runs in the background
+    // while everything that doesn't depend on it (artwork, colors, queue) is assembled in the meantime
+    long tickStart = System.currentTimeMillis();
+    final PlaybackInfo previousInfo = previous;
+
     String artworkUrl = artworkUrlCache.getSpotifyArtworkUrl(currentTrack);
-    if (artworkUrl != null && !artworkUrl.isEmpty()) {
-      imageData.setImageUrl(artworkUrl);
-      ImageData previousImageData = Optional.ofNullable(previous)
-        .map(PlaybackInfo::getCurrentlyPlaying)
-        .map(CurrentlyPlaying::getImageData)
-        .orElse(null);
-      String spotifyArtworkUrl = artworkUrlCache.getSpotifyArtworkUrl(currentTrack);
-      ColorFetchResult colors = dominantColorProvider.getDominantColorFromImageUrl(spotifyArtworkUrl, previousImageData);
-      imageData.setImageColors(colors);
+    boolean hasArtwork = artworkUrl != null && !artworkUrl.isEmpty();
+    String contextStageKey = "context:" + (context.getContext() != null ? context.getContext().getUri() : null) + ":" + currentTrack.getId();
+    CompletableFuture<PlaybackContext.Context> contextStage = startStage(contextStageKey, () -> contextProvider.findContextName(context, previousInfo));
 
-      String iTunesHDArtworkUrl = artworkUrlCache.findITunesHDArtworkUrl(currentTrack);
-      imageData.setImageUrlHD(iTunesHDArtworkUrl);
+    List<IPlaylistItem> playbackQueueQueue = playbackQueue.getQueue();
+    queuePrefetcher.prefetch(playbackQueueQueue);
+    IPlaylistItem nextSong = playbackQueueQueue.size() > 1 ? playbackQueueQueue.get(0) : null;
+    String nextArtworkUrl = nextSong != null ? artworkUrlCache.getSpotifyArtworkUrl(nextSong) : null;
+    boolean hasNextArtwork = nextArtworkUrl != null && !nextArtworkUrl.isEmpty();
+
+    Set<String> awaitedKeys = new HashSet<>();
+    ImageData imageData = currentlyPlaying.getImageData();
+    if (hasArtwork) {
+      applyArtwork(imageData, currentTrack, artworkUrl, awaitedKeys);
+    }
+
+    ImageData nextImageData = null;
+    if (nextSong != null) {
+      nextImageData = new ImageData();
+      if (hasNextArtwork) {
+        applyArtwork(nextImageData, nextSong, nextArtworkUrl, awaitedKeys);
+      }
     }
 
     // PlaybackContext
@@ -246,8 +595,14 @@ public class PlaybackInfoProvider {
     playbackContext.setDevice(context.getDevice().getName());
     playbackContext.setThumbnailUrl(BigPictureConstants.BLANK);
 
-    PlaybackContext.Context contextName = contextProvider.findContextName(context, previous);
+    // The tracklist depends on the context, so without it this tick can't produce consistent data.
+    // The lookup stays pending and is picked up again by the next tick.
+    PlaybackContext.Context contextName = awaitStage(contextStage, tickStart + CONTEXT_STAGE_DEADLINE_MS, null);
+    if (contextName == null) {
+      return null;
+    }
     playbackContext.setContext(contextName);
+    ContextSnapshot contextSnapshot = contextProvider.getSnapshot();
 
     // TrackData
     TrackData trackData = playbackInfo.getTrackData();
@@ -263,72 +618,75 @@ public class PlaybackInfoProvider {
       switch (type) {
         case ALBUM:
           // Album context
-          trackData.setListTracks(contextProvider.getListTracks());
-          trackData.setTrackCount(contextProvider.getTrackCount());
-          trackData.setCombinedTime(contextProvider.getTotalTime());
-          trackData.setTrackNumber(contextProvider.getCurrentlyPlayingAlbumTrackNumber());
-          trackData.setDiscNumber(contextProvider.getCurrentlyPlayingAlbumTrackDiscNumber());
-          trackData.setTotalDiscCount(contextProvider.getTotalDiscCount());
-          playbackContext.setThumbnailUrl(contextProvider.getThumbnailUrl());
+          trackData.setListTracks(contextSnapshot.getListTracks());
+          trackData.setTrackCount(contextSnapshot.getTrackCount());
+          trackData.setCombinedTime(contextSnapshot.getTotalTime());
+          trackData.setTrackNumber(contextSnapshot.getCurrentlyPlayingAlbumTrackNumber());
+          trackData.setDiscNumber(contextSnapshot.getCurrentlyPlayingAlbumTrackDiscNumber());
+          trackData.setTotalDiscCount(contextSnapshot.getTotalDiscCount());
+          playbackContext.setThumbnailUrl(contextSnapshot.getThumbnailUrl());
           if (!playbackContext.getContext().getContextType().equals(PlaybackContext.Context.ContextType.QUEUE_IN_ALBUM)) {
             trackData.setTrackListView(TrackData.ListViewType.ALBUM);
           }
-          currentlyPlaying.setTrackNumber(contextProvider.getCurrentlyPlayingAlbumTrackNumber());
-          currentlyPlaying.setDiscNumber(contextProvider.getCurrentlyPlayingAlbumTrackDiscNumber());
+          currentlyPlaying.setTrackNumber(contextSnapshot.getCurrentlyPlayingAlbumTrackNumber());
+          currentlyPlaying.setDiscNumber(contextSnapshot.getCurrentlyPlayingAlbumTrackDiscNumber());
           break;
         case PLAYLIST:
           // Playlist context
-          Long playlistTotalTime = contextProvider.getTotalTime();
-          trackData.setListTracks(playlistTotalTime != null && playlistTotalTime > 0 ? contextProvider.getListTracks() : List.of());
-          trackData.setTrackNumber(contextProvider.getCurrentlyPlayingPlaylistTrackNumber(context));
-          trackData.setTrackCount(contextProvider.getTrackCount());
+          Long playlistTotalTime = contextSnapshot.getTotalTime();
+          trackData.setListTracks(playlistTotalTime != null && playlistTotalTime > 0 ? contextSnapshot.getListTracks() : List.of());
+          trackData.setTrackNumber(contextSnapshot.getCurrentlyPlayingPlaylistTrackNumber(context));
+          trackData.setTrackCount(contextSnapshot.getTrackCount());
           trackData.setCombinedTime(playlistTotalTime);
           trackData.setTrackListView(TrackData.ListViewType.PLAYLIST);
           playbackContext.getContext().setContextType(PlaybackContext.Context.ContextType.PLAYLIST);
-          playbackContext.setThumbnailUrl(contextProvider.getThumbnailUrl());
-          currentlyPlaying.setTrackNumber(contextProvider.getCurrentlyPlayingPlaylistTrackNumber(context));
-          if (trackData.getListTracks().size() < QUEUE_FALLBACK_THRESHOLD && !playbackContext.hasAnyShuffle()) {
+          playbackContext.setThumbnailUrl(contextSnapshot.getThumbnailUrl());
+          currentlyPlaying.setTrackNumber(contextSnapshot.getCurrentlyPlayingPlaylistTrackNumber(context));
+          if (!playbackContext.hasAnyShuffle()) {
             trackData.setTrackListView(TrackData.ListViewType.PLAYLIST_ALBUM);
           }
           break;
         case ARTIST:
         case USER:
         // User favorite tracks or Artist top tracks context
-          trackData.setTrackNumber(contextProvider.getCurrentlyPlayingPlaylistTrackNumber(context));
-          trackData.setTrackCount(contextProvider.getTrackCount());
-          trackData.setCombinedTime(contextProvider.getTotalTime());
-          playbackContext.setThumbnailUrl(contextProvider.getThumbnailUrl());
-          currentlyPlaying.setTrackNumber(contextProvider.getCurrentlyPlayingPlaylistTrackNumber(context));
+          trackData.setTrackNumber(contextSnapshot.getCurrentlyPlayingPlaylistTrackNumber(context));
+          trackData.setTrackCount(contextSnapshot.getTrackCount());
+          trackData.setCombinedTime(contextSnapshot.getTotalTime());
+          playbackContext.setThumbnailUrl(contextSnapshot.getThumbnailUrl());
+          currentlyPlaying.setTrackNumber(contextSnapshot.getCurrentlyPlayingPlaylistTrackNumber(context));
           break;
         case SHOW:
         case EPISODE:
           // Podcast context
           trackData.setTrackListView(TrackData.ListViewType.PODCAST);
-          trackData.setTrackNumber(contextProvider.getCurrentlyPlayingPlaylistTrackNumber(context));
-          trackData.setTrackCount(contextProvider.getTrackCount());
-          trackData.setCombinedTime(contextProvider.getTotalTime());
-          playbackContext.setThumbnailUrl(contextProvider.getThumbnailUrl());
-          currentlyPlaying.setTrackNumber(contextProvider.getCurrentlyPlayingPlaylistTrackNumber(context));
+          trackData.setTrackNumber(contextSnapshot.getCurrentlyPlayingPlaylistTrackNumber(context));
+          trackData.setTrackCount(contextSnapshot.getTrackCount());
+          trackData.setCombinedTime(contextSnapshot.getTotalTime());
+          playbackContext.setThumbnailUrl(contextSnapshot.getThumbnailUrl());
+          currentlyPlaying.setTrackNumber(contextSnapshot.getCurrentlyPlayingPlaylistTrackNumber(context));
           break;
       }
     } else {
       // Fallback context
       trackData.setTrackListView(TrackData.ListViewType.QUEUE);
-      trackData.setTrackNumber(contextProvider.getCurrentlyPlayingPlaylistTrackNumber(context));
-      trackData.setTrackCount(contextProvider.getTrackCount());
-      trackData.setCombinedTime(contextProvider.getTotalTime());
-      playbackContext.setThumbnailUrl(contextProvider.getThumbnailUrl());
-      currentlyPlaying.setTrackNumber(contextProvider.getCurrentlyPlayingPlaylistTrackNumber(context));
+      trackData.setTrackNumber(contextSnapshot.getCurrentlyPlayingPlaylistTrackNumber(context));
+      trackData.setTrackCount(contextSnapshot.getTrackCount());
+      trackData.setCombinedTime(contextSnapshot.getTotalTime());
+      playbackContext.setThumbnailUrl(contextSnapshot.getThumbnailUrl());
+      currentlyPlaying.setTrackNumber(contextSnapshot.getCurrentlyPlayingPlaylistTrackNumber(context));
     }
 
-    // Kill-switch for gigantic playlists, to save performance
-    if (playbackContext.hasAnyShuffle() || (trackData.getTrackListView().equals(TrackData.ListViewType.PLAYLIST_ALBUM) && trackData.getListTracks() != null && trackData.getListTracks().size() > QUEUE_FALLBACK_THRESHOLD)) {
+    String thumbnailArtistId = contextSnapshot.getThumbnailArtistId();
+    if (BigPictureConstants.BLANK.equals(playbackContext.getThumbnailUrl()) && thumbnailArtistId != null) {
+      awaitedKeys.add(ArtworkResolvedEvent.toArtworkKey(ArtworkResolvedEvent.ArtworkType.THUMBNAIL, thumbnailArtistId));
+    }
+
+    // The tracklist is useless while shuffling, so only the queue is displayed
+    if (playbackContext.hasAnyShuffle()) {
       trackData.setTrackListView(TrackData.ListViewType.QUEUE);
       trackData.setListTracks(List.of());
     }
 
-    List<IPlaylistItem> playbackQueueQueue = playbackQueue.getQueue();
-
     List<TrackElement> queue = playbackQueueQueue.stream()
       .map(TrackElement::fromPlaylistItem)
       .collect(Collectors.toList());
@@ -353,11 +711,11 @@ public class PlaybackInfoProvider {
     if (!playbackContext.hasAnyShuffle() && (inAlbumView || inPlaylistAlbumView)) {
       Optional<TrackElement> nextTrackInQueue = queue.stream().findFirst();
       if (nextTrackInQueue.isPresent()) {
-        int nextAlbumTrackIndex = inAlbumView ? contextProvider.getCurrentlyPlayingAlbumTrackNumber() : contextProvider.getCurrentlyPlayingPlaylistTrackNumber(context);
-        if (nextAlbumTrackIndex >= contextProvider.getListTracks().size()) {
+        int nextAlbumTrackIndex = inAlbumView ? contextSnapshot.getCurrentlyPlayingAlbumTrackNumber() : contextSnapshot.getCurrentlyPlayingPlaylistTrackNumber(context);
+        if (nextAlbumTrackIndex >= contextSnapshot.getListTracks().size()) {
           nextAlbumTrackIndex = 0;
         }
-        TrackElement nextTrackInAlbum = contextProvider.getListTracks().get(nextAlbumTrackIndex);
+        TrackElement nextTrackInAlbum = contextSnapshot.getListTracks().get(nextAlbumTrackIndex);
         if (!nextTrackInQueue.get().getId().equals(nextTrackInAlbum.getId())) {
           playbackContext.getContext().setContextType(PlaybackContext.Context.ContextType.QUEUE_IN_ALBUM);
         }
@@ -366,30 +724,62 @@ public class PlaybackInfoProvider {
 
     trackData.setQueue(queue);
 
-    if (playbackQueueQueue.size() > 1) {
-      IPlaylistItem nextSong = playbackQueueQueue.get(0);
-      ImageData nextImageData = new ImageData();
-      String nextArtworkUrl = artworkUrlCache.getSpotifyArtworkUrl(nextSong);
-      if (nextArtworkUrl != null && !nextArtworkUrl.isEmpty()) {
-        nextImageData.setImageUrl(nextArtworkUrl);
-        ImageData previousNextImageData = Optional.ofNullable(previous)
-          .map(PlaybackInfo::getTrackData)
-          .map(TrackData::getNextImageData)
-          .orElse(null);
-        ColorFetchResult colors = dominantColorProvider.getDominantColorFromImageUrl(nextArtworkUrl, previousNextImageData);
-        nextImageData.setImageColors(colors);
-
-        String iTunesHDArtworkUrl = artworkUrlCache.findITunesHDArtworkUrl(currentTrack);
-        nextImageData.setImageUrlHD(iTunesHDArtworkUrl);
-      }
+    // Gigantic playlists only send a window of tracks around the current position, to keep the payload small
+    if (trackData.getListTracks().size() > QUEUE_FALLBACK_THRESHOLD) {
+      applyListTracksWindow(trackData);
+    }
+
+    if (nextImageData != null) {
       trackData.setNextImageData(nextImageData);
     }
 
+    this.builtAwaitedArtworkKeys = awaitedKeys;
     return playbackInfo;
   }
 
+  /**
+   * Fill in the artwork, colors and HD artwork of the given item. Anything that is still being resolved
+   * in the background is added to the awaited artwork keys, so that its result triggers an early refresh.
+   */
+  private void applyArtwork(ImageData imageData, IPlaylistItem item, String artworkUrl, Set<String> awaitedArtworkKeys) {
+    String colorArtworkUrl = artworkUrlCache.getColorArtworkUrl(item);
+    imageData.setImageUrl(artworkUrl);
+    imageData.setImageColors(dominantColorProvider.getDominantColorFromImageUrl(colorArtworkUrl));
+    imageData.setImageUrlHD(artworkUrlCache.findITunesHDArtworkUrl(item));
+    if (ColorFetchResult.FALLBACK.equals(imageData.getImageColors())) {
+      awaitedArtworkKeys.add(ArtworkResolvedEvent.toArtworkKey(ArtworkResolvedEvent.ArtworkType.COLORS, colorArtworkUrl));
+    }
+    if (BigPictureConstants.BLANK.equals(imageData.getImageUrlHD())) {
+      awaitedArtworkKeys.add(ArtworkResolvedEvent.toArtworkKey(ArtworkResolvedEvent.ArtworkType.HD, artworkUrlCache.getCacheKey(item)));
+    }
+  }
+
+  /**
+   * Cut down the list tracks to a window of at most {@link #QUEUE_FALLBACK_THRESHOLD} tracks around the
+   * current track. The window only moves in steps of {@link #LIST_TRACKS_WINDOW_STEP} tracks, so that it stays
+   * the same for several songs in a row (and with it the payload sent to the interface). As long as neither the
+   * source list nor the offset change, the window of the previous tick is reused, so the tracklist is still
+   * compared by identity when assigning the section versions.
+   */
+  private void applyListTracksWindow(TrackData trackData) {
+    List<TrackElement> listTracks = trackData.getListTracks();
+    int currentIndex = Math.max(0, trackData.getTrackNumber() - 1);
+    int offset = Math.floorDiv(currentIndex - LIST_TRACKS_WINDOW_STEP, LIST_TRACKS_WINDOW_STEP) * LIST_TRACKS_WINDOW_STEP;
+    offset = Math.max(0, Math.min(offset, listTracks.size() - QUEUE_FALLBACK_THRESHOLD));
+    if (listTracks != windowSourceTracks || offset != windowOffset) {
+      windowSourceTracks = listTracks;
+      windowOffset = offset;
+      windowListTracks = List.copyOf(listTracks.subList(offset, offset + QUEUE_FALLBACK_THRESHOLD));
+    }
+    trackData.setListTracks(windowListTracks);
+    trackData.setListTracksOffset(offset);
+  }
+
   private PlaybackInfo buildInfoTrack(PlaybackQueue playbackQueue, CurrentlyPlayingContext context) {
     PlaybackInfo pInfo = buildBaseInfo(playbackQueue, context);
+    if (pInfo == null) {
+      return null;
+    }
 
     IPlaylistItem item = playbackQueue.getCurrentlyPlaying();
     if (context.getItem() != null && !Objects.equals(item.getId(), context.getItem().getId())) {
@@ -412,6 +802,9 @@ public class PlaybackInfoProvider {
 
   private PlaybackInfo buildInfoEpisode(PlaybackQueue playbackQueue, CurrentlyPlayingContext context) {
     PlaybackInfo pInfo = buildBaseInfo(playbackQueue, context);
+    if (pInfo == null) {
+      return null;
+    }
 
     Episode episode = (Episode) playbackQueue.getCurrentlyPlaying();
     CurrentlyPlaying currentlyPlaying = pInfo.getCurrentlyPlaying();
@@ -0,0 +1,104 @@
+package spotify.playback.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import se.michaelthelin.spotify.model_objects.IPlaylistItem;
+import se.michaelthelin.spotify.model_objects.specification.Track;
+import spotify.playback.data.help.BigPictureConstants;
+import spotify.playback.data.help.BoundedCache;
+import spotify.playback.data.lyrics.GeniusLyricsScraper;
+import spotify.playback.data.visual.artwork.ArtworkUrlCache;
+import spotify.playback.data.visual.color.ColorProviderService;
+import spotify.util.SpotifyUtils;
+
+/**
+ * Warms the artwork, color and lyrics caches for the upcoming items in the queue in the background,
+ * so that a song change can be served from the caches without any external calls on the request path.
+ */
+@Component
+public class QueuePrefetcher {
+  private static final int DEFAULT_PREFETCH_SIZE = 3;
+  private static final int RECENTLY_PREFETCHED_SIZE = 50;
+
+  private final ArtworkUrlCache artworkUrlCache;
+  private final ColorProviderService colorProvider;
+  private final GeniusLyricsScraper geniusLyricsScraper;
+
+  @Value("${prefetch.queue.size:" + DEFAULT_PREFETCH_SIZE + "}")
+  private int prefetchSize;
+
+  @Value("${prefetch.lyrics:true}")
+  private boolean prefetchLyrics;
+
+  private final BoundedCache<String, Boolean> recentlyPrefetched;
+  private final ExecutorService prefetchExecutor;
+
+  QueuePrefetcher(ArtworkUrlCache artworkUrlCache, ColorProviderService colorProvider, GeniusLyricsScraper geniusLyricsScraper) {
+    this.artworkUrlCache = artworkUrlCache;
+    this.colorProvider = colorProvider;
+    this.geniusLyricsScraper = geniusLyricsScraper;
+    this.recentlyPrefetched = new BoundedCache<>("Recently prefetched items", RECENTLY_PREFETCHED_SIZE);
+    this.prefetchExecutor = Executors.newSingleThreadExecutor();
+  }
+
+  @PreDestroy
+  void shutdownPrefetchExecutor() {
+    prefetchExecutor.shutdownNow();
+  }
+
+  /**
+   * Schedule the prefetching of the next few items in the given queue. Items that
+   * have already been prefetched recently are skipped.
+   *
+   * @param queue the upcoming items, in playback order
+   */
+  public void prefetch(List<IPlaylistItem> queue) {
+    List<IPlaylistItem> upcoming = queue.subList(0, Math.min(prefetchSize, queue.size()));
+    List<IPlaylistItem> itemsToPrefetch = new ArrayList<>();
+    for (IPlaylistItem item : upcoming) {
+      if (item != null && item.getId() != null && recentlyPrefetched.get(item.getId()) == null) {
+        recentlyPrefetched.put(item.getId(), true);
+        itemsToPrefetch.add(item);
+      }
+    }
+    if (!itemsToPrefetch.isEmpty()) {
+      // Only the very next song is looked up, to not hammer Genius with requests for songs that may be skipped anyway
+      IPlaylistItem lyricsItem = prefetchLyrics && itemsToPrefetch.get(0) == upcoming.get(0) ? upcoming.get(0) : null;
+      prefetchExecutor.execute(() -> prefetchItems(itemsToPrefetch, lyricsItem));
+    }
+  }
+
+  private void prefetchItems(List<IPlaylistItem> items, IPlaylistItem lyricsItem) {
+    List<String> colorArtworkUrls = new ArrayList<>();
+    for (IPlaylistItem item : items) {
+      try {
+        String artworkUrl = artworkUrlCache.getSpotifyArtworkUrl(item);
+        if (artworkUrl != null && !BigPictureConstants.BLANK.equals(artworkUrl)) {
+          colorArtworkUrls.add(artworkUrlCache.getColorArtworkUrl(item));
+          artworkUrlCache.findITunesHDArtworkUrl(item);
+        }
+      } catch (Exception e) {
+        e.printStackTrace();
+      }
+    }
+
+    // The colors of all items are requested together, so they can be fetched with a single batch request
+    colorProvider.prefetchColors(colorArtworkUrls);
+
+    if (lyricsItem instanceof Track) {
+      try {
+        geniusLyricsScraper.getSongLyrics(SpotifyUtils.getFirstArtistName((Track) lyricsItem), lyricsItem.getName());
+      } catch (Exception e) {
+        e.printStackTrace();
+      }
+    }
+  }
+}
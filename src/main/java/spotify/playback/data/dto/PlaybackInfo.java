@@ -22,6 +22,7 @@ public class PlaybackInfo implements PlaybackInfoResponse {
 
   private Type type;
   private Long deployTime;
+  private int versionId;
 
   private CurrentlyPlaying currentlyPlaying;
   private PlaybackContext playbackContext;
@@ -90,7 +91,11 @@ public class PlaybackInfo implements PlaybackInfoResponse {
   }
 
   public int getVersionId() {
-    return hashCode();
+    return versionId;
+  }
+
+  public void setVersionId(int versionId) {
+    this.versionId = versionId;
   }
 
   public List<String> getSettingsToToggle() {
@@ -0,0 +1,38 @@
+package spotify.playback.data.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+/**
+ * A JSON Merge Patch (RFC 7396) that transforms the playback info of the given base version
+ * into the playback info of the new version. Only the changed subtrees are included.
+ */
+public class PlaybackInfoDelta implements PlaybackInfoResponse {
+  private static final String TYPE = "DELTA";
+
+  private final int baseVersionId;
+  private final int versionId;
+  private final String patch;
+
+  public PlaybackInfoDelta(int baseVersionId, int versionId, String patch) {
+    this.baseVersionId = baseVersionId;
+    this.versionId = versionId;
+    this.patch = patch;
+  }
+
+  public String getType() {
+    return TYPE;
+  }
+
+  public int getBaseVersionId() {
+    return baseVersionId;
+  }
+
+  public int getVersionId() {
+    return versionId;
+  }
+
+  @JsonRawValue
+  public String getPatch() {
+    return patch;
+  }
+}
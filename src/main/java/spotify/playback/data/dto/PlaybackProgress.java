@@ -0,0 +1,22 @@
+package spotify.playback.data.dto;
+
+/**
+ * Lightweight heartbeat sent to streaming interfaces while the playback info itself hasn't changed.
+ */
+public class PlaybackProgress implements PlaybackInfoResponse {
+  private final int versionId;
+  private final Integer timeCurrent;
+
+  public PlaybackProgress(int versionId, Integer timeCurrent) {
+    this.versionId = versionId;
+    this.timeCurrent = timeCurrent;
+  }
+
+  public int getVersionId() {
+    return versionId;
+  }
+
+  public Integer getTimeCurrent() {
+    return timeCurrent;
+  }
+}
@@ -3,6 +3,7 @@ package spotify.playback.data.dto.sub;
 import java.util.List;
 import java.util.Objects;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 
@@ -10,6 +11,7 @@ import com.fasterxml.jackson.annotation.JsonInclude.Include;
 public class CurrentlyPlaying extends TrackElement {
   private Integer timeCurrent;
   private ImageData imageData;
+  private int version;
 
   public CurrentlyPlaying() {
     super();
@@ -40,6 +42,15 @@ public class CurrentlyPlaying extends TrackElement {
 
   // Equals and hashCode explicitly ignore timeCurrent
 
+  @JsonIgnore
+  public int getVersion() {
+    return version;
+  }
+
+  public void setVersion(int version) {
+    this.version = version;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o)
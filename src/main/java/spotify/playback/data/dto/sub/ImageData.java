@@ -2,6 +2,7 @@ package spotify.playback.data.dto.sub;
 
 import java.util.Objects;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 
@@ -14,6 +15,7 @@ public class ImageData {
   private String imageUrl;
   private String imageUrlHD;
   private ColorFetchResult imageColors;
+  private int version;
 
   public ImageData() {
     this.imageUrl = BigPictureConstants.BLANK;
@@ -45,6 +47,15 @@ public class ImageData {
     this.imageColors = imageColors;
   }
 
+  @JsonIgnore
+  public int getVersion() {
+    return version;
+  }
+
+  public void setVersion(int version) {
+    this.version = version;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o)
@@ -19,6 +19,7 @@ public class PlaybackContext {
   private String contextType;
   private String device;
   private String thumbnailUrl;
+  private int version;
 
   public Boolean getPaused() {
     return paused;
@@ -97,6 +98,15 @@ public class PlaybackContext {
     this.thumbnailUrl = thumbnailUrl;
   }
 
+  @JsonIgnore
+  public int getVersion() {
+    return version;
+  }
+
+  public void setVersion(int version) {
+    this.version = version;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o)
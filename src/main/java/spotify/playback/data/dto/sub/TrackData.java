@@ -3,6 +3,7 @@ package spotify.playback.data.dto.sub;
 import java.util.List;
 import java.util.Objects;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 
@@ -23,9 +24,11 @@ public class TrackData {
   private Integer trackCount;
   private Long combinedTime;
   private List<TrackElement> listTracks;
+  private int listTracksOffset;
   private List<TrackElement> queue;
 
   private ImageData nextImageData;
+  private int version;
 
   public Integer getTrackNumber() {
     return trackNumber;
@@ -83,6 +86,14 @@ public class TrackData {
     this.listTracks = listTracks;
   }
 
+  public int getListTracksOffset() {
+    return listTracksOffset;
+  }
+
+  public void setListTracksOffset(int listTracksOffset) {
+    this.listTracksOffset = listTracksOffset;
+  }
+
   public List<TrackElement> getQueue() {
     return queue;
   }
@@ -99,6 +110,15 @@ public class TrackData {
     this.nextImageData = nextImageData;
   }
 
+  @JsonIgnore
+  public int getVersion() {
+    return version;
+  }
+
+  public void setVersion(int version) {
+    this.version = version;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o)
@@ -107,12 +127,12 @@ public class TrackData {
       return false;
     TrackData trackData = (TrackData) o;
     return Objects.equals(trackNumber, trackData.trackNumber) && Objects.equals(discNumber, trackData.discNumber) && Objects.equals(totalDiscCount, trackData.totalDiscCount) && trackListView == trackData.trackListView
-        && Objects.equals(trackCount, trackData.trackCount) && Objects.equals(combinedTime, trackData.combinedTime) && Objects.equals(listTracks, trackData.listTracks) && Objects.equals(queue, trackData.queue)
+        && Objects.equals(trackCount, trackData.trackCount) && Objects.equals(combinedTime, trackData.combinedTime) && Objects.equals(listTracks, trackData.listTracks) && listTracksOffset == trackData.listTracksOffset && Objects.equals(queue, trackData.queue)
         && Objects.equals(nextImageData, trackData.nextImageData);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(trackNumber, discNumber, totalDiscCount, trackListView, trackCount, combinedTime, listTracks, queue, nextImageData);
+    return Objects.hash(trackNumber, discNumber, totalDiscCount, trackListView, trackCount, combinedTime, listTracks, listTracksOffset, queue, nextImageData);
   }
 }
@@ -0,0 +1,53 @@
+package spotify.playback.data.events;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published when an artwork lookup that was running in the background (such as the iTunes HD artwork or a context thumbnail) has finished.
+ */
+public class ArtworkResolvedEvent extends ApplicationEvent {
+  public enum ArtworkType {
+    /**
+     * iTunes HD artwork, keyed by the artwork cache key (usually the album URI)
+     */
+    HD,
+
+    /**
+     * Dominant colors, keyed by the image URL the colors were extracted from
+     */
+    COLORS,
+
+    /**
+     * Album context thumbnail, keyed by the ID of the artist the thumbnail belongs to
+     */
+    THUMBNAIL
+  }
+
+  private final ArtworkType artworkType;
+  private final String key;
+
+  public ArtworkResolvedEvent(Object source, ArtworkType artworkType, String key) {
+    super(source);
+    this.artworkType = artworkType;
+    this.key = key;
+  }
+
+  public ArtworkType getArtworkType() {
+    return artworkType;
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  /**
+   * @return a key that is unique across all artwork types
+   */
+  public String getArtworkKey() {
+    return toArtworkKey(artworkType, key);
+  }
+
+  public static String toArtworkKey(ArtworkType artworkType, String key) {
+    return artworkType.name() + ":" + key;
+  }
+}
@@ -0,0 +1,12 @@
+package spotify.playback.data.events;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published whenever the shared playback info snapshot has been rebuilt by the polling loop.
+ */
+public class PlaybackInfoRefreshedEvent extends ApplicationEvent {
+  public PlaybackInfoRefreshedEvent(Object source) {
+    super(source);
+  }
+}
@@ -0,0 +1,114 @@
+package spotify.playback.data.help;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A simple thread-safe LRU cache with a fixed maximum number of entries.
+ * Once the limit is reached, the least recently accessed entry is evicted.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class BoundedCache<K, V> {
+  private final String name;
+  private final int maxSize;
+  private final LinkedHashMap<K, V> entries;
+
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  public BoundedCache(String name, int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Cache size of " + name + " must be positive: " + maxSize);
+    }
+    this.name = name;
+    this.maxSize = maxSize;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        if (size() > BoundedCache.this.maxSize) {
+          evictions++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Get the cached value for the given key.
+   *
+   * @param key the key
+   * @return the value, null if it isn't cached
+   */
+  public synchronized V get(K key) {
+    V value = entries.get(key);
+    if (value != null) {
+      hits++;
+    } else {
+      misses++;
+    }
+    return value;
+  }
+
+  /**
+   * Get the cached value for the given key, or compute and cache it if it's missing.
+   * The mapping function is called while holding the lock, so it should be quick.
+   *
+   * @param key the key
+   * @param mappingFunction the function to compute the value (null results are not cached)
+   * @return the value
+   */
+  public synchronized V computeIfAbsent(K key, Function<K, V> mappingFunction) {
+    V value = get(key);
+    if (value == null) {
+      value = mappingFunction.apply(key);
+      if (value != null) {
+        entries.put(key, value);
+      }
+    }
+    return value;
+  }
+
+  public synchronized void put(K key, V value) {
+    entries.put(key, value);
+  }
+
+  public synchronized V remove(K key) {
+    return entries.remove(key);
+  }
+
+  /**
+   * Get a copy of all cached entries, from the least to the most recently accessed one.
+   * Doesn't count as an access.
+   *
+   * @return the copy of the entries
+   */
+  public synchronized Map<K, V> snapshot() {
+    return new LinkedHashMap<>(entries);
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return name + " [size=" + entries.size() + "/" + maxSize + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "]";
+  }
+}
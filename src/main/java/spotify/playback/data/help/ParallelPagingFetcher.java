@@ -0,0 +1,111 @@
+package spotify.playback.data.help;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import se.michaelthelin.spotify.model_objects.specification.Paging;
+
+/**
+ * Fetches all remaining pages of a paged Spotify resource concurrently. The total
+ * is read from the first page, which every Spotify endpoint returns anyway, so all
+ * remaining offsets are known upfront and don't have to be requested one after another.
+ * Each resource only has a limited number of pages in flight at once, so a huge playlist
+ * can't occupy the shared executor with hundreds of queued page requests.
+ */
+@Component
+public class ParallelPagingFetcher {
+  private static final int DEFAULT_MAX_PAGES_IN_FLIGHT = 4;
+
+  private final ExecutorService pagingExecutor;
+  private final int maxPagesInFlight;
+
+  ParallelPagingFetcher(@Value("${paging.max.in.flight:" + DEFAULT_MAX_PAGES_IN_FLIGHT + "}") int maxPagesInFlight) {
+    this.pagingExecutor = Executors.newFixedThreadPool(maxPagesInFlight);
+    this.maxPagesInFlight = maxPagesInFlight;
+  }
+
+  @PreDestroy
+  void shutdownPagingExecutor() {
+    pagingExecutor.shutdownNow();
+  }
+
+  /**
+   * Fetch all items of a paged resource, given its first page.
+   *
+   * @param firstPage   the first page (its total and page size determine the remaining offsets)
+   * @param pageFetcher fetches the page at the given offset and limit
+   * @param <T>         the item type
+   * @return all items, in the order of their offsets
+   */
+  public <T> List<T> fetchAll(Paging<T> firstPage, BiFunction<Integer, Integer, Paging<T>> pageFetcher) {
+    return fetchAll(firstPage, pageFetcher, () -> false, items -> {});
+  }
+
+  /**
+   * Fetch all items of a paged resource, given its first page, reporting the progress after every page.
+   * No further pages are requested once the fetch is cancelled, and any outstanding ones are dropped.
+   *
+   * @param firstPage        the first page (its total and page size determine the remaining offsets)
+   * @param pageFetcher      fetches the page at the given offset and limit
+   * @param cancelled        checked before each page is requested and after each page has arrived
+   * @param progressConsumer receives a read-only view of all items loaded so far (in order) after every page
+   * @param <T>              the item type
+   * @return all items, in the order of their offsets
+   * @throws CancellationException if the fetch was cancelled before all pages were loaded
+   */
+  public <T> List<T> fetchAll(Paging<T> firstPage, BiFunction<Integer, Integer, Paging<T>> pageFetcher, BooleanSupplier cancelled, Consumer<List<T>> progressConsumer) {
+    List<T> items = new ArrayList<>(Arrays.asList(firstPage.getItems()));
+    int total = firstPage.getTotal() != null ? firstPage.getTotal() : items.size();
+    int pageSize = firstPage.getLimit() != null && firstPage.getLimit() > 0 ? firstPage.getLimit() : items.size();
+    if (firstPage.getNext() == null || pageSize == 0) {
+      return items;
+    }
+
+    Deque<CompletableFuture<Paging<T>>> pagesInFlight = new ArrayDeque<>();
+    int nextOffset = (firstPage.getOffset() != null ? firstPage.getOffset() : 0) + pageSize;
+    try {
+      while (nextOffset < total || !pagesInFlight.isEmpty()) {
+        while (nextOffset < total && pagesInFlight.size() < maxPagesInFlight) {
+          checkCancelled(cancelled);
+          final int pageOffset = nextOffset;
+          pagesInFlight.add(CompletableFuture.supplyAsync(() -> pageFetcher.apply(pageOffset, pageSize), pagingExecutor));
+          nextOffset += pageSize;
+        }
+        items.addAll(Arrays.asList(pagesInFlight.remove().join().getItems()));
+        checkCancelled(cancelled);
+        progressConsumer.accept(Collections.unmodifiableList(items));
+      }
+    } catch (CompletionException | CancellationException e) {
+      // Pages that haven't started yet are skipped entirely
+      pagesInFlight.forEach(page -> page.cancel(true));
+      if (e instanceof CompletionException && e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+    return items;
+  }
+
+  private void checkCancelled(BooleanSupplier cancelled) {
+    if (cancelled.getAsBoolean()) {
+      throw new CancellationException("Paging was cancelled");
+    }
+  }
+}
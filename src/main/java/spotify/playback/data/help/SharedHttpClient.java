@@ -0,0 +1,184 @@
+package spotify.playback.data.help;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * A single HTTP client shared by all outbound lookups (iTunes, Genius, the external color service),
+ * so that connections are kept alive and reused (HTTP/2 where the server supports it) instead of
+ * paying a new TLS handshake for every single request. The number of concurrent requests per host
+ * is limited, to not hammer any of these services during a burst of song changes.
+ */
+@Component
+public class SharedHttpClient {
+  private static final int DEFAULT_MAX_REQUESTS_PER_HOST = 4;
+  private static final long DEFAULT_CONNECT_TIMEOUT_MS = 5 * 1000;
+  private static final long DEFAULT_REQUEST_TIMEOUT_MS = 10 * 1000;
+
+  private final HttpClient httpClient;
+  private final Map<String, Semaphore> hostPermits;
+  private final int maxRequestsPerHost;
+  private final Duration requestTimeout;
+
+  public SharedHttpClient(
+      @Value("${http.max.requests.per.host:" + DEFAULT_MAX_REQUESTS_PER_HOST + "}") int maxRequestsPerHost,
+      @Value("${http.connect.timeout.ms:" + DEFAULT_CONNECT_TIMEOUT_MS + "}") long connectTimeoutMs,
+      @Value("${http.request.timeout.ms:" + DEFAULT_REQUEST_TIMEOUT_MS + "}") long requestTimeoutMs) {
+    this.httpClient = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_2)
+      .followRedirects(HttpClient.Redirect.NORMAL)
+      .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+      .build();
+    this.hostPermits = new ConcurrentHashMap<>();
+    this.maxRequestsPerHost = maxRequestsPerHost;
+    this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+  }
+
+  /**
+   * Send a GET request and read the entire response body as a string.
+   *
+   * @param url       the URL (must already be encoded)
+   * @param userAgent the user agent, null for the default one
+   * @return the response body
+   * @throws IOException if the request failed, timed out, or didn't respond with a 2xx status
+   */
+  public String getString(String url, String userAgent) throws IOException {
+    return getString(url, userAgent, requestTimeout);
+  }
+
+  /**
+   * Send a GET request with a custom timeout and read the entire response body as a string.
+   *
+   * @param url       the URL (must already be encoded)
+   * @param userAgent the user agent, null for the default one
+   * @param timeout   the timeout for this request
+   * @return the response body
+   * @throws IOException if the request failed, timed out, or didn't respond with a 2xx status
+   */
+  public String getString(String url, String userAgent, Duration timeout) throws IOException {
+    URI uri = URI.create(url);
+    Semaphore permits = acquirePermit(uri);
+    try {
+      HttpResponse<String> response = send(newRequest(uri, userAgent, timeout).GET().build(), HttpResponse.BodyHandlers.ofString());
+      checkStatus(url, response.statusCode());
+      return response.body();
+    } finally {
+      permits.release();
+    }
+  }
+
+  /**
+   * Send a GET request and return the response body as a stream, so that it can be processed
+   * while it's still being downloaded. The stream must be closed by the caller, which also frees
+   * up the connection for the next request to this host.
+   *
+   * @param url       the URL (must already be encoded)
+   * @param userAgent the user agent, null for the default one
+   * @return the response body stream
+   * @throws IOException if the request failed, timed out, or didn't respond with a 2xx status
+   */
+  public InputStream getStream(String url, String userAgent) throws IOException {
+    URI uri = URI.create(url);
+    return openStream(uri, newRequest(uri, userAgent, requestTimeout).GET().build());
+  }
+
+  /**
+   * Send a POST request and return the response body as a stream, so that results can be processed
+   * as soon as they arrive. The stream must be closed by the caller.
+   *
+   * @param url         the URL (must already be encoded)
+   * @param contentType the content type of the request body
+   * @param body        the request body
+   * @return the response body stream
+   * @throws IOException if the request failed, timed out, or didn't respond with a 2xx status
+   */
+  public InputStream postStream(String url, String contentType, String body) throws IOException {
+    URI uri = URI.create(url);
+    HttpRequest request = newRequest(uri, null, requestTimeout)
+      .header("Content-Type", contentType)
+      .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+      .build();
+    return openStream(uri, request);
+  }
+
+  private InputStream openStream(URI uri, HttpRequest request) throws IOException {
+    Semaphore permits = acquirePermit(uri);
+    try {
+      HttpResponse<InputStream> response = send(request, HttpResponse.BodyHandlers.ofInputStream());
+      if (response.statusCode() / 100 != 2) {
+        response.body().close();
+        checkStatus(uri.toString(), response.statusCode());
+      }
+      return new FilterInputStream(response.body()) {
+        private boolean released = false;
+
+        @Override
+        public void close() throws IOException {
+          try {
+            super.close();
+          } finally {
+            if (!released) {
+              released = true;
+              permits.release();
+            }
+          }
+        }
+      };
+    } catch (IOException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  private HttpRequest.Builder newRequest(URI uri, String userAgent, Duration timeout) {
+    HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+      .timeout(timeout);
+    if (userAgent != null) {
+      request.header("User-Agent", userAgent);
+    }
+    return request;
+  }
+
+  private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) throws IOException {
+    try {
+      return httpClient.send(request, bodyHandler);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Request to " + request.uri() + " was interrupted");
+    }
+  }
+
+  private Semaphore acquirePermit(URI uri) throws IOException {
+    Semaphore permits = hostPermits.computeIfAbsent(uri.getHost(), host -> new Semaphore(maxRequestsPerHost));
+    try {
+      if (!permits.tryAcquire(requestTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+        throw new IOException("Too many pending requests to " + uri.getHost());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for a connection to " + uri.getHost());
+    }
+    return permits;
+  }
+
+  private void checkStatus(String url, int statusCode) throws IOException {
+    if (statusCode / 100 != 2) {
+      throw new IOException("HTTP status " + statusCode + " for " + url);
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package spotify.playback.data.lyrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.StringJoiner;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.parser.StreamParser;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+
+/**
+ * Extracts the lyrics from a Genius song page. The page can either be fully parsed
+ * into a document first, or streamed, in which case only the lyrics containers are
+ * kept and everything else (mostly scripts) is discarded while parsing.
+ */
+public class GeniusLyricsExtractor {
+  private static final Evaluator LYRICS_CONTAINER = QueryParser.parse("div[data-lyrics-container=true]");
+
+  private GeniusLyricsExtractor() {
+  }
+
+  /**
+   * Extract the lyrics from a fully parsed Genius page.
+   *
+   * @param document the parsed page
+   * @return the lyrics (empty string if there are none)
+   */
+  public static String extractLyrics(Document document) {
+    StringJoiner lyricsBlocks = new StringJoiner("\n");
+    for (Element element : document.select(LYRICS_CONTAINER)) {
+      lyricsBlocks.add(getLyricsBlock(element));
+    }
+    return lyricsBlocks.toString();
+  }
+
+  /**
+   * Extract the lyrics from a Genius page while it's being parsed. Elements are emitted by
+   * the stream parser once they are complete, so every element that isn't (part of) a lyrics
+   * container can be removed right away, and the document never grows beyond the
+   * currently open elements.
+   *
+   * @param streamParser the stream parser, already set up with the page to parse
+   * @return the lyrics (empty string if there are none)
+   * @throws IOException if reading the page failed
+   */
+  public static String extractLyrics(StreamParser streamParser) throws IOException {
+    StringJoiner lyricsBlocks = new StringJoiner("\n");
+    try (streamParser) {
+      Iterator<Element> elements = streamParser.iterator();
+      while (elements.hasNext()) {
+        Element element = elements.next();
+        if (element.is(LYRICS_CONTAINER)) {
+          lyricsBlocks.add(getLyricsBlock(element));
+          element.remove();
+        } else if (element.parent() != null && element.closest(LYRICS_CONTAINER) == null) {
+          element.remove();
+        }
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    return lyricsBlocks.toString();
+  }
+
+  private static String getLyricsBlock(Element element) {
+    StringBuilder lyricsBuilder = new StringBuilder();
+    recursivelyGetDeepestLyricsNodeText(element, lyricsBuilder);
+    return lyricsBuilder.toString();
+  }
+
+  private static void recursivelyGetDeepestLyricsNodeText(Node node, StringBuilder stringBuilder) {
+    if (node instanceof TextNode) {
+      // Get the raw lyrics text for this verse
+      TextNode textNode = (TextNode) node;
+      String text = textNode.text();
+      stringBuilder.append(text);
+    } else if (node instanceof Element) {
+      Element element = (Element) node;
+      if ("br".equals(element.tagName())) {
+        // Special case: if it's a <br> node, make sure the line breaks are preserved
+        stringBuilder.append("\n");
+      } else {
+        // Exclude redundant garbage info attributed accordingly
+        if (!element.hasAttr("data-exclude-from-selection")) {
+          // Iterate through all children until the text nodes are found
+          // (This is needed for clickable lyrics snippets)
+          for (Node childNode : element.childNodes()) {
+            recursivelyGetDeepestLyricsNodeText(childNode, stringBuilder);
+          }
+        }
+      }
+    }
+  }
+}
@@ -1,34 +1,62 @@
 package spotify.playback.data.lyrics;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.StringJoiner;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PostConstruct;
 
 import org.apache.commons.logging.Log;
-import org.jsoup.Connection;
 import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.nodes.Node;
-import org.jsoup.nodes.TextNode;
-import org.jsoup.select.Elements;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
+import spotify.playback.data.help.BoundedCache;
+import spotify.playback.data.help.SharedHttpClient;
 
 // TODO: redo implementation based on fmbot https://github.com/fmbot-discord/fmbot/blob/dev/src/FMBot.Bot/Services/ThirdParty/GeniusService.cs#L22
 @Service
 public class GeniusLyricsScraper {
-  private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36";
+  public static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36";
+  private static final int DEFAULT_LYRICS_CACHE_SIZE = 200;
+  private static final long DEFAULT_LYRICS_TTL_MINUTES = 24 * 60;
+  private static final long DEFAULT_LYRICS_NOT_FOUND_TTL_MINUTES = 30;
   private static final Gson gson = new Gson();
 
+  @Value("${lyrics.cache.size:" + DEFAULT_LYRICS_CACHE_SIZE + "}")
+  private int lyricsCacheSize;
+
+  @Value("${lyrics.cache.ttl.minutes:" + DEFAULT_LYRICS_TTL_MINUTES + "}")
+  private long lyricsTtlMinutes;
+
+  @Value("${lyrics.cache.not.found.ttl.minutes:" + DEFAULT_LYRICS_NOT_FOUND_TTL_MINUTES + "}")
+  private long lyricsNotFoundTtlMinutes;
+
+  @Value("${lyrics.streaming.parser:true}")
+  private boolean streamingParser;
+
+  private final SharedHttpClient sharedHttpClient;
+  private BoundedCache<String, CachedLyrics> lyricsCache;
+
+  GeniusLyricsScraper(SharedHttpClient sharedHttpClient) {
+    this.sharedHttpClient = sharedHttpClient;
+  }
+
+  @PostConstruct
+  void initLyricsCache() {
+    this.lyricsCache = new BoundedCache<>("Lyrics cache", lyricsCacheSize);
+  }
+
   /**
    * Try to find the lyrics for the given artist and song name on the lyrics website genius.com.
    * This method works by first searching for the track URL, then scraping the lyrics from the actual
@@ -39,31 +67,37 @@ public class GeniusLyricsScraper {
    * @return the lyrics as a single, compiled string (empty string if the lyrics couldn't be found)
    */
   public String getSongLyrics(String artistName, String songName) {
+    GeniusSearchMatcher searchMatcher = new GeniusSearchMatcher(artistName, songName);
+    String cacheKey = searchMatcher.getCacheKey();
+    CachedLyrics cachedLyrics = lyricsCache.get(cacheKey);
+    if (cachedLyrics != null && !cachedLyrics.isExpired()) {
+      return cachedLyrics.lyrics;
+    }
     try {
-      String url = findLyricsUrl(artistName, songName);
-      if (url != null) {
-        return scrapeLyrics(url);
-      }
+      String url = findLyricsUrl(searchMatcher);
+      String lyrics = url != null ? scrapeLyrics(url) : "";
+
+      // Songs without lyrics are remembered too, but for a shorter time, as the lyrics might get added eventually
+      long ttlMinutes = lyrics.isEmpty() ? lyricsNotFoundTtlMinutes : lyricsTtlMinutes;
+      lyricsCache.put(cacheKey, new CachedLyrics(lyrics, TimeUnit.MINUTES.toMillis(ttlMinutes)));
+      return lyrics;
     } catch (Exception e) {
+      // Failed requests aren't cached, so they are simply retried the next time
       e.printStackTrace();
     }
     return "";
   }
 
-  private String findLyricsUrl(String artistName, String songName) throws IOException {
-    // Preprocess artistName and songName to remove brackets
-    String processedArtistName = preprocessString(artistName);
-    String processedSongName = preprocessString(songName);
+  private String findLyricsUrl(GeniusSearchMatcher searchMatcher) throws IOException {
+    // The search terms are preprocessed to remove brackets
+    String searchQuery = URLEncoder.encode(searchMatcher.getArtistName() + " " + searchMatcher.getSongName(), StandardCharsets.UTF_8);
+    String searchUrl = "https://genius.com/api/search?q=" + searchQuery;
 
-    String searchUrl = "https://genius.com/api/search?q=" + processedArtistName + " " + processedSongName;
+    String json = sharedHttpClient.getString(searchUrl, USER_AGENT);
 
-    Connection.Response response = Jsoup.connect(searchUrl)
-            .userAgent(USER_AGENT)
-            .ignoreContentType(true)
-            .execute();
-    String json = response.body();
-
-    String matchingPath = findMatchingPath(json, processedArtistName, processedSongName);
+    JsonObject jsonObject = gson.fromJson(json, JsonObject.class);
+    JsonArray hits = jsonObject.getAsJsonObject("response").getAsJsonArray("hits");
+    String matchingPath = searchMatcher.findBestPath(hits);
 
     if (matchingPath != null) {
       return "https://genius.com" + matchingPath;
@@ -71,107 +105,28 @@ public class GeniusLyricsScraper {
     return null;
   }
 
-  private String preprocessString(String input) {
-    // Remove all occurrences of problematic symbols
-    input = input.replaceAll("[#@_]", "");
-
-    // Check if the string contains only non-language characters outside the brackets
-    String outsideBrackets = input.replaceAll("\\(.*?\\)", "").trim();
-    if (outsideBrackets.isEmpty() || outsideBrackets.matches("[^\\p{L}\\p{N}]+")) {
-      // If so, keep the content inside the brackets
-      Pattern pattern = Pattern.compile("\\((.*?)\\)");
-      Matcher matcher = pattern.matcher(input);
-      if (matcher.find()) {
-        return matcher.group(1).trim();
-      }
-    }
-
-    // Remove content inside brackets
-    input = input.replaceAll("\\(.*?\\)", "").trim();
-
-    // Remove any trailing text after an unpaired opening bracket
-    if (input.contains("(") && !input.contains(")")) {
-      input = input.substring(0, input.indexOf('(')).trim();
-    }
-
-    return input;
-  }
-
-  private String findMatchingPath(String json, String artistName, String songName) {
-    JsonObject jsonObject = gson.fromJson(json, JsonObject.class);
-    JsonArray hits = jsonObject.getAsJsonObject("response").getAsJsonArray("hits");
-
-    // Normalize the search strings
-    String normalizedArtistName = normalizeString(artistName);
-    String normalizedSongName = normalizeString(songName);
-    String[] artistNameParts = normalizedArtistName.split("\\s+");
-
-    for (JsonElement hit : hits) {
-      JsonObject result = hit.getAsJsonObject().getAsJsonObject("result");
-      String artistNames = result.get("artist_names").getAsString();
-      String title = result.get("title").getAsString();
-
-      // Normalize the JSON strings
-      String normalizedArtistNames = normalizeString(artistNames);
-      String normalizedTitle = normalizeString(title);
-
-      // Check for partial matches in artist names
-      boolean artistMatch = Arrays.stream(artistNameParts)
-              .allMatch(normalizedArtistNames::contains);
-      // Match title
-      boolean titleMatch = normalizedTitle.contains(normalizedSongName);
-
-      if (artistMatch && titleMatch) {
-        return result.get("path").getAsString();
+  private String scrapeLyrics(String url) throws IOException {
+    try (InputStream page = sharedHttpClient.getStream(url, USER_AGENT)) {
+      if (streamingParser) {
+        // Genius pages are huge and script-heavy, so only the lyrics containers are kept while parsing
+        StreamParser streamParser = new StreamParser(Parser.htmlParser()).parse(new InputStreamReader(page, StandardCharsets.UTF_8), url);
+        return GeniusLyricsExtractor.extractLyrics(streamParser);
       }
+      return GeniusLyricsExtractor.extractLyrics(Jsoup.parse(page, StandardCharsets.UTF_8.name(), url));
     }
-
-    return null;
   }
 
-  private String normalizeString(String input) {
-    return input.toLowerCase().replaceAll("[^a-zA-Z0-9\\s]", "").trim();
-  }
+  private static class CachedLyrics {
+    private final String lyrics;
+    private final long expiryTimestamp;
 
-  private String scrapeLyrics(String url) throws IOException {
-    Connection.Response response = Jsoup.connect(url)
-      .userAgent(USER_AGENT)
-      .ignoreContentType(true)
-      .execute();
-
-    Document document = response.parse();
-    Elements lyricsElements = document.select("div[data-lyrics-container=true]");
-
-    StringJoiner lyricsBlocks = new StringJoiner("\n");
-    for (Element element : lyricsElements) {
-      StringBuilder lyricsBuilder = new StringBuilder();
-      recursivelyGetDeepestLyricsNodeText(element, lyricsBuilder);
-      lyricsBlocks.add(lyricsBuilder);
+    private CachedLyrics(String lyrics, long ttlMillis) {
+      this.lyrics = lyrics;
+      this.expiryTimestamp = System.currentTimeMillis() + ttlMillis;
     }
-    return lyricsBlocks.toString();
-  }
 
-  private void recursivelyGetDeepestLyricsNodeText(Node node, StringBuilder stringBuilder) {
-    if (node instanceof TextNode) {
-      // Get the raw lyrics text for this verse
-      TextNode textNode = (TextNode) node;
-      String text = textNode.text();
-      stringBuilder.append(text);
-    } else if (node instanceof Element) {
-      Element element = (Element) node;
-      if ("br".equals(element.tagName())) {
-        // Special case: if it's a <br> node, make sure the line breaks are preserved
-        stringBuilder.append("\n");
-      } else {
-        // Exclude redundant garbage info attributed accordingly
-        if (!element.hasAttr("data-exclude-from-selection")) {
-          // Iterate through all children until the text nodes are found
-          // (This is needed for clickable lyrics snippets)
-          for (Node childNode : element.childNodes()) {
-            recursivelyGetDeepestLyricsNodeText(childNode, stringBuilder);
-          }
-        }
-      }
+    private boolean isExpired() {
+      return System.currentTimeMillis() > expiryTimestamp;
     }
   }
 }
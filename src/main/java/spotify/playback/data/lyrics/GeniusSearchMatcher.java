@@ -0,0 +1,196 @@
+package spotify.playback.data.lyrics;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Finds the best matching result of a Genius search for a given artist and song name.
+ * The search terms are preprocessed and normalized only once per search, and every hit
+ * is scored instead of simply taking the first one that roughly fits. That way, an exact
+ * title match is preferred over a remix or live version further up in the results.
+ */
+public class GeniusSearchMatcher {
+  private static final Pattern PROBLEMATIC_SYMBOLS = Pattern.compile("[#@_]");
+  private static final Pattern BRACKETS = Pattern.compile("\\(.*?\\)");
+  private static final Pattern BRACKETS_CONTENT = Pattern.compile("\\((.*?)\\)");
+  private static final Pattern NON_LANGUAGE_CHARACTERS = Pattern.compile("[^\\p{L}\\p{N}]+");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private static final double PERFECT_SCORE = 1.0;
+  private static final double EXACT_TITLE_SCORE = 1.0;
+  private static final double PARTIAL_TITLE_SCORE = 0.9;
+  private static final double TITLE_WORDS_SCORE = 0.8;
+  private static final double MIN_SCORE = 0.8;
+
+  private final String artistName;
+  private final String songName;
+  private final String normalizedSongName;
+  private final String[] artistNameParts;
+  private final String[] songNameParts;
+
+  public GeniusSearchMatcher(String artistName, String songName) {
+    this.artistName = preprocess(artistName);
+    this.songName = preprocess(songName);
+    String normalizedArtistName = normalize(this.artistName);
+    this.normalizedSongName = normalize(this.songName);
+    this.artistNameParts = normalizedArtistName.isEmpty() ? new String[0] : WHITESPACE.split(normalizedArtistName);
+    this.songNameParts = normalizedSongName.isEmpty() ? new String[0] : WHITESPACE.split(normalizedSongName);
+  }
+
+  /**
+   * @return the preprocessed artist name to search for
+   */
+  public String getArtistName() {
+    return artistName;
+  }
+
+  /**
+   * @return the preprocessed song name to search for
+   */
+  public String getSongName() {
+    return songName;
+  }
+
+  /**
+   * Build the key from the preprocessed names rather than the normalized ones, as the normalization
+   * also strips punctuation (which would give e.g. "Help!" and "Help" the same key).
+   *
+   * @return a key that is the same for all spellings of this artist and song that only differ in case, whitespace or brackets
+   */
+  public String getCacheKey() {
+    return toCacheKeyPart(artistName) + "\n" + toCacheKeyPart(songName);
+  }
+
+  private static String toCacheKeyPart(String name) {
+    return WHITESPACE.matcher(name.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+  }
+
+  /**
+   * Find the path of the best matching hit of the given Genius search results.
+   *
+   * @param hits the hits of the search response
+   * @return the path of the best match, null if no hit matched well enough
+   */
+  public String findBestPath(JsonArray hits) {
+    String bestPath = null;
+    double bestScore = MIN_SCORE;
+    for (JsonElement hit : hits) {
+      JsonObject result = hit.getAsJsonObject().getAsJsonObject("result");
+      double score = score(result.get("artist_names").getAsString(), result.get("title").getAsString());
+      // On a tie, the earlier hit wins, as Genius already sorts by relevance
+      if (score > bestScore || (bestPath == null && score == bestScore)) {
+        bestScore = score;
+        bestPath = result.get("path").getAsString();
+        if (score >= PERFECT_SCORE) {
+          break;
+        }
+      }
+    }
+    return bestPath;
+  }
+
+  /**
+   * Score a single hit. The artist acts as a gate: unless every part of the artist name is
+   * found in the artist names of the hit, the hit scores 0 no matter how well the title fits
+   * (otherwise a common title by a different artist with a similar name would be accepted).
+   * Past that gate, the score is the title score, ranging from 0 to 1. A perfect match (the
+   * exact title) scores 1, and a title only matches well enough if it contains all words of
+   * the song name. If nothing of the artist or song name is left after normalizing (e.g. a name
+   * made up entirely of symbols), no hit can be matched reliably and every hit scores 0.
+   *
+   * @param hitArtistNames the artist names of the hit
+   * @param hitTitle       the title of the hit
+   * @return the score of the hit
+   */
+  double score(String hitArtistNames, String hitTitle) {
+    if (artistNameParts.length == 0 || normalizedSongName.isEmpty()) {
+      return 0.0;
+    }
+    if (!matchesArtist(normalize(hitArtistNames))) {
+      return 0.0;
+    }
+    return scoreTitle(normalize(hitTitle));
+  }
+
+  private boolean matchesArtist(String normalizedArtistNames) {
+    for (String artistNamePart : artistNameParts) {
+      if (!normalizedArtistNames.contains(artistNamePart)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private double scoreTitle(String normalizedTitle) {
+    if (normalizedTitle.equals(normalizedSongName)) {
+      return EXACT_TITLE_SCORE;
+    }
+    if (normalizedTitle.contains(normalizedSongName)) {
+      return PARTIAL_TITLE_SCORE;
+    }
+    int matchedParts = 0;
+    for (String songNamePart : songNameParts) {
+      if (normalizedTitle.contains(songNamePart)) {
+        matchedParts++;
+      }
+    }
+    return songNameParts.length > 0 ? TITLE_WORDS_SCORE * matchedParts / songNameParts.length : 0.0;
+  }
+
+  /**
+   * Remove problematic symbols and any content in brackets (such as "feat." or "Remastered"),
+   * unless the name consists of nothing but the brackets.
+   *
+   * @param input the raw artist or song name
+   * @return the preprocessed name
+   */
+  static String preprocess(String input) {
+    // Remove all occurrences of problematic symbols
+    input = PROBLEMATIC_SYMBOLS.matcher(input).replaceAll("");
+
+    // Check if the string contains only non-language characters outside the brackets
+    String outsideBrackets = BRACKETS.matcher(input).replaceAll("").trim();
+    if (outsideBrackets.isEmpty() || NON_LANGUAGE_CHARACTERS.matcher(outsideBrackets).matches()) {
+      // If so, keep the content inside the brackets
+      Matcher matcher = BRACKETS_CONTENT.matcher(input);
+      if (matcher.find()) {
+        return matcher.group(1).trim();
+      }
+    }
+
+    // Remove any trailing text after an unpaired opening bracket
+    int unpairedBracket = outsideBrackets.indexOf('(');
+    if (unpairedBracket >= 0 && outsideBrackets.indexOf(')') < 0) {
+      return outsideBrackets.substring(0, unpairedBracket).trim();
+    }
+
+    return outsideBrackets;
+  }
+
+  /**
+   * Lower-case the given string and strip everything but letters, digits and whitespace, in a single
+   * pass. Letters of any script are kept, so that non-Latin names can be matched as well.
+   *
+   * @param input the string to normalize
+   * @return the normalized string
+   */
+  static String normalize(String input) {
+    StringBuilder normalized = new StringBuilder(input.length());
+    for (int i = 0; i < input.length(); i++) {
+      char c = Character.toLowerCase(input.charAt(i));
+      if (Character.isLetterOrDigit(c) || isWhitespace(c)) {
+        normalized.append(c);
+      }
+    }
+    return normalized.toString().trim();
+  }
+
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+}
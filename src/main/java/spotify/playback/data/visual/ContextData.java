@@ -0,0 +1,179 @@
+package spotify.playback.data.visual;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.michaelthelin.spotify.model_objects.specification.Album;
+import se.michaelthelin.spotify.model_objects.specification.TrackSimplified;
+import spotify.playback.data.dto.sub.PlaybackContext;
+import spotify.playback.data.dto.sub.TrackElement;
+import spotify.playback.data.help.BigPictureConstants;
+
+/**
+ * The data of a single context as it was fetched from Spotify. Instances are never modified
+ * once created (apart from the revalidation timestamp), so they can be cached per context URI
+ * and shared between the context snapshots.
+ */
+class ContextData {
+  static final ContextData EMPTY = new ContextData(null, List.of(), 0, BigPictureConstants.BLANK);
+
+  private final PlaybackContext.Context context;
+  private final List<TrackElement> listTracks;
+  private final Map<String, Integer> listTrackIndexById;
+  private final Map<String, Integer> listTrackIndexByTitle;
+  private final Integer trackCount;
+  private final Long totalTrackDuration;
+  private final String thumbnailUrl;
+  private final String snapshotId;
+  private final Album album;
+  private final List<TrackSimplified> albumTracks;
+  private final Map<String, Integer> albumTrackIndex;
+  private final long revalidationInterval;
+  private volatile long validatedTimestamp;
+
+  private ContextData(PlaybackContext.Context context, List<TrackElement> listTracks, Integer trackCount, String thumbnailUrl, String snapshotId, Album album, List<TrackSimplified> albumTracks, long revalidationInterval) {
+    this.context = context;
+    this.listTracks = listTracks != null ? Collections.unmodifiableList(listTracks) : null;
+    this.trackCount = trackCount;
+    this.thumbnailUrl = thumbnailUrl;
+    this.snapshotId = snapshotId;
+    this.album = album;
+    this.albumTracks = albumTracks != null ? Collections.unmodifiableList(albumTracks) : null;
+    this.revalidationInterval = revalidationInterval;
+    this.validatedTimestamp = System.currentTimeMillis();
+
+    // While a playlist is still being paged in, this is the combined time of the tracks loaded so far (see isComplete)
+    this.totalTrackDuration = listTracks != null
+      ? listTracks.stream().mapToLong(TrackElement::getTimeTotal).sum()
+      : 0L;
+
+    // Lookup maps for the position of a track, so that finding the current track doesn't need to scan
+    // the entire list on every poll. If a track appears multiple times, its first position is used.
+    Map<String, Integer> indexById = new HashMap<>();
+    Map<String, Integer> indexByTitle = new HashMap<>();
+    if (listTracks != null) {
+      for (int i = 0; i < listTracks.size(); i++) {
+        TrackElement trackElement = listTracks.get(i);
+        if (trackElement.getId() != null) {
+          indexById.putIfAbsent(trackElement.getId(), i);
+        }
+        if (trackElement.getTitle() != null) {
+          indexByTitle.putIfAbsent(trackElement.getTitle(), i);
+        }
+      }
+    }
+    this.listTrackIndexById = indexById;
+    this.listTrackIndexByTitle = indexByTitle;
+
+    Map<String, Integer> albumIndex = new HashMap<>();
+    if (albumTracks != null) {
+      for (int i = 0; i < albumTracks.size(); i++) {
+        albumIndex.putIfAbsent(albumTracks.get(i).getId(), i);
+      }
+    }
+    this.albumTrackIndex = albumIndex;
+  }
+
+  ContextData(PlaybackContext.Context context, List<TrackElement> listTracks, Integer trackCount, String thumbnailUrl) {
+    this(context, listTracks, trackCount, thumbnailUrl, null, null, null, 0);
+  }
+
+  ContextData(PlaybackContext.Context context, List<TrackElement> listTracks, Integer trackCount, String thumbnailUrl, long revalidationInterval) {
+    this(context, listTracks, trackCount, thumbnailUrl, null, null, null, revalidationInterval);
+  }
+
+  ContextData(PlaybackContext.Context context, List<TrackElement> listTracks, Integer trackCount, String thumbnailUrl, String snapshotId, long revalidationInterval) {
+    this(context, listTracks, trackCount, thumbnailUrl, snapshotId, null, null, revalidationInterval);
+  }
+
+  ContextData(PlaybackContext.Context context, List<TrackElement> listTracks, Integer trackCount, String thumbnailUrl, Album album, List<TrackSimplified> albumTracks) {
+    this(context, listTracks, trackCount, thumbnailUrl, null, album, albumTracks, 0);
+  }
+
+  /**
+   * @return a copy of this context data with the given list tracks (e.g. once all pages of a playlist are loaded)
+   */
+  ContextData withListTracks(List<TrackElement> listTracks) {
+    return new ContextData(context, listTracks, trackCount, thumbnailUrl, snapshotId, album, albumTracks, revalidationInterval);
+  }
+
+  /**
+   * @return a copy of this context data with the given thumbnail (e.g. once it was resolved in the background)
+   */
+  ContextData withThumbnailUrl(String thumbnailUrl) {
+    return new ContextData(context, listTracks, trackCount, thumbnailUrl, snapshotId, album, albumTracks, revalidationInterval);
+  }
+
+  boolean hasListTracks() {
+    return listTracks != null;
+  }
+
+  /**
+   * @return true if all tracks of this context have been loaded (false while a playlist is still being paged in)
+   */
+  boolean isComplete() {
+    return listTracks != null && trackCount != null && trackCount <= listTracks.size();
+  }
+
+  /**
+   * @return true if this data may be outdated and should be checked again (never for data without a revalidation interval)
+   */
+  boolean needsRevalidation() {
+    return revalidationInterval > 0 && System.currentTimeMillis() - validatedTimestamp > revalidationInterval;
+  }
+
+  void markValidated() {
+    this.validatedTimestamp = System.currentTimeMillis();
+  }
+
+  /**
+   * @return a copy of the context DTO (as it's modified further down the line), null if there is none
+   */
+  PlaybackContext.Context copyContext() {
+    return context != null
+      ? PlaybackContext.Context.of(context.getContextName(), context.getContextType(), context.getContextDescription())
+      : null;
+  }
+
+  List<TrackElement> getListTracks() {
+    return listTracks;
+  }
+
+  Map<String, Integer> getListTrackIndexById() {
+    return listTrackIndexById;
+  }
+
+  Map<String, Integer> getListTrackIndexByTitle() {
+    return listTrackIndexByTitle;
+  }
+
+  Integer getTrackCount() {
+    return trackCount;
+  }
+
+  Long getTotalTrackDuration() {
+    return totalTrackDuration;
+  }
+
+  String getThumbnailUrl() {
+    return thumbnailUrl;
+  }
+
+  String getSnapshotId() {
+    return snapshotId;
+  }
+
+  Album getAlbum() {
+    return album;
+  }
+
+  List<TrackSimplified> getAlbumTracks() {
+    return albumTracks;
+  }
+
+  Map<String, Integer> getAlbumTrackIndex() {
+    return albumTrackIndex;
+  }
+}
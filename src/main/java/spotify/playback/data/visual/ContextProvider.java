@@ -4,11 +4,21 @@ import java.net.MalformedURLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 import se.michaelthelin.spotify.SpotifyApi;
@@ -32,38 +42,60 @@ import se.michaelthelin.spotify.model_objects.specification.Track;
 import se.michaelthelin.spotify.model_objects.specification.TrackSimplified;
 import se.michaelthelin.spotify.model_objects.specification.User;
 import spotify.api.SpotifyCall;
-import spotify.api.events.SpotifyApiException;
 import spotify.playback.data.dto.PlaybackInfo;
 import spotify.playback.data.dto.sub.PlaybackContext;
 import spotify.playback.data.dto.sub.TrackElement;
+import spotify.playback.data.events.ArtworkResolvedEvent;
 import spotify.playback.data.help.BigPictureConstants;
 import spotify.playback.data.help.BigPictureUtils;
+import spotify.playback.data.help.BoundedCache;
+import spotify.playback.data.help.ParallelPagingFetcher;
 import spotify.util.SpotifyUtils;
 import spotify.util.data.AlbumTrackPair;
 
 @Component
 public class ContextProvider {
-  private final SpotifyApi spotifyApi;
+  private static final int CONTEXT_CACHE_SIZE = 20;
+  private static final long CONTEXT_REVALIDATION_INTERVAL_MS = 60 * 1000;
+  private static final int ARTIST_THUMBNAIL_CACHE_SIZE = 200;
 
-  private ModelObjectType previousType;
-  private String previousSpotifyContext;
-  private Album currentContextAlbum;
-  private List<TrackSimplified> currentContextAlbumTracks;
-  private List<TrackElement> listTracks;
-  private Integer currentlyPlayingAlbumTrackNumber;
-  private Integer currentlyPlayingAlbumTrackDiscNumber;
-  private Integer trackCount;
-  private Long totalTrackDuration;
-  private String thumbnailUrl;
-
-  ContextProvider(SpotifyApi spotifyApi) {
+  private final SpotifyApi spotifyApi;
+  private final ParallelPagingFetcher parallelPagingFetcher;
+  private final ApplicationEventPublisher eventPublisher;
+  private final ExecutorService playlistPagingExecutor;
+  private final ExecutorService thumbnailExecutor;
+  private final BoundedCache<String, ContextData> contextCache;
+  private final BoundedCache<String, String> artistThumbnailCache;
+  private final Set<String> pendingThumbnailLookups;
+  private final Map<String, PlaylistLoad> runningPlaylistLoads;
+  private final AtomicReference<ContextSnapshot> snapshot;
+  private final AtomicLong latestLookupId;
+
+  ContextProvider(SpotifyApi spotifyApi, ParallelPagingFetcher parallelPagingFetcher, ApplicationEventPublisher eventPublisher) {
     this.spotifyApi = spotifyApi;
-    this.listTracks = new ArrayList<>();
+    this.parallelPagingFetcher = parallelPagingFetcher;
+    this.eventPublisher = eventPublisher;
+    this.playlistPagingExecutor = Executors.newSingleThreadExecutor();
+    this.thumbnailExecutor = Executors.newSingleThreadExecutor();
+    this.contextCache = new BoundedCache<>("Context cache", CONTEXT_CACHE_SIZE);
+    this.artistThumbnailCache = new BoundedCache<>("Artist thumbnail cache", ARTIST_THUMBNAIL_CACHE_SIZE);
+    this.pendingThumbnailLookups = ConcurrentHashMap.newKeySet();
+    this.runningPlaylistLoads = new ConcurrentHashMap<>();
+    this.snapshot = new AtomicReference<>(ContextSnapshot.EMPTY);
+    this.latestLookupId = new AtomicLong();
+  }
+
+  @PreDestroy
+  void shutdownExecutors() {
+    playlistPagingExecutor.shutdownNow();
+    thumbnailExecutor.shutdownNow();
   }
 
   /**
    * Get the name of the currently playing context (either a playlist name, an
-   * artist, or an album).
+   * artist, or an album). Any further data of the context is published as
+   * a new {@link ContextSnapshot}. Only the most recently started lookup publishes
+   * its snapshot, a slower one that has been superseded in the meantime doesn't.
    *
    * @param info     the context info
    * @param previous the previous info to compare to
@@ -74,32 +106,34 @@ public class ContextProvider {
     try {
       Context context = info.getContext();
       ModelObjectType type = BigPictureUtils.getModelObjectType(info);
+      long lookupId = latestLookupId.incrementAndGet();
+      ContextSnapshot current = snapshot.get();
       if (context != null || type != null) {
-        boolean force = previous == null || previous.getPlaybackContext() == null || previous.getPlaybackContext().getContext() == null || !Objects.equals(type, previousType);
+        boolean force = previous == null || previous.getPlaybackContext() == null || previous.getPlaybackContext().getContext() == null || !Objects.equals(type, current.getType());
         if (type != null) {
           switch (type) {
             case ALBUM:
-              contextDto = getAlbumContext(info, force);
+              contextDto = getAlbumContext(info, force, current, lookupId);
               break;
             case PLAYLIST:
-              contextDto = getPlaylistContext(context, force);
+              contextDto = getPlaylistContext(context, force, current, lookupId);
               break;
             case ARTIST:
-              contextDto = getArtistContext(context, force);
+              contextDto = getArtistContext(context, force, current, lookupId);
               break;
             case SHOW:
             case EPISODE:
-              contextDto = getPodcastContext(info, force);
+              contextDto = getPodcastContext(info, type, force, current, lookupId);
               break;
             case USER:
-              contextDto = getUserFavoriteTracksContext(context, force);
+              contextDto = getUserFavoriteTracksContext(context, force, current, lookupId);
               break;
           }
         }
       } else {
-        contextDto = getFallbackContext(info);
+        contextDto = getFallbackContext(info, lookupId);
       }
-      previousType = type;
+      snapshot.updateAndGet(s -> lookupId != latestLookupId.get() || Objects.equals(type, s.getType()) ? s : s.withType(type));
     } catch (Exception e) {
       e.printStackTrace();
     }
@@ -112,116 +146,164 @@ public class ContextProvider {
     }
   }
 
-  public List<TrackElement> getListTracks() {
-    return listTracks;
-  }
-
-  public Integer getCurrentlyPlayingAlbumTrackNumber() {
-    return currentlyPlayingAlbumTrackNumber;
-  }
-
-  public Integer getCurrentlyPlayingAlbumTrackDiscNumber() {
-    return currentlyPlayingAlbumTrackDiscNumber;
-  }
-
-  public Integer getTotalDiscCount() {
-    return currentContextAlbumTracks.stream().mapToInt(TrackSimplified::getDiscNumber).max().orElse(1);
-  }
-
-  public Integer getTrackCount() {
-    return trackCount;
-  }
-
-  public Long getTotalTime() {
-    return totalTrackDuration;
+  /**
+   * Get the latest snapshot of the currently playing context. Take it once
+   * and read everything from it, to get a consistent view of the context.
+   *
+   * @return the current context snapshot
+   */
+  public ContextSnapshot getSnapshot() {
+    return snapshot.get();
   }
 
-  public String getThumbnailUrl() {
-    return thumbnailUrl;
+  /**
+   * Publish a newly loaded context as the current one. A lookup that took so long that the next one has
+   * already been started in the meantime (see the stage deadline of the PlaybackInfoProvider) doesn't publish
+   * anything anymore, as its context may already be outdated and would otherwise overwrite the newer one.
+   *
+   * @param lookupId the ID of the lookup, as handed out at the start of {@link #findContextName}
+   * @return a copy of the context DTO
+   */
+  private PlaybackContext.Context publish(long lookupId, String contextKey, ModelObjectType type, ContextData data) {
+    snapshot.updateAndGet(s -> lookupId == latestLookupId.get() ? s.withContext(contextKey, type, data) : s);
+    return data.copyContext();
   }
 
-  private void setTrackCount(Integer trackCount) {
-    this.trackCount = trackCount;
-  }
+  private PlaybackContext.Context getArtistContext(Context context, boolean force, ContextSnapshot current, long lookupId) {
+    if (force || didContextChange(context, current)) {
+      ContextData contextData = contextCache.get(context.getUri());
+      if (contextData == null) {
+        String artistId = context.getHref().replace(BigPictureConstants.ARTIST_PREFIX, "");
+        Artist contextArtist = SpotifyCall.execute(spotifyApi.getArtist(artistId));
 
-  private void calculateAndSetTotalTrackDuration(List<TrackElement> listTracks) {
-    this.totalTrackDuration = listTracks.stream().mapToLong(TrackElement::getTimeTotal).sum();
-  }
+        Image[] artistImages = contextArtist.getImages();
+        String largestImage = SpotifyUtils.findLargestImage(artistImages);
+        cacheArtistThumbnail(contextArtist);
 
-  public Integer getCurrentlyPlayingPlaylistTrackNumber(CurrentlyPlayingContext context) {
-    int trackIndex = -1;
-    if (context.getItem() != null && context.getItem().getId() != null) {
-      String id = context.getItem().getId();
-      trackIndex = IntStream.range(0, listTracks.size())
-        .filter(i -> id.equals(listTracks.get(i).getId()))
-        .findFirst()
-        .orElse(-1);
-      if (trackIndex < 0 && context.getItem() != null && context.getItem() instanceof Episode) {
-        Episode episode = (Episode) context.getItem();
-        trackIndex = IntStream.range(0, listTracks.size())
-          .filter(i -> listTracks.get(i).getTitle().contains(episode.getName()))
-          .findFirst()
-          .orElse(-1);
+        //trackCount = contextArtist.getFollowers().getTotal();
+        // Spotify removed the Follower count from the API :(
+        contextData = new ContextData(PlaybackContext.Context.of(contextArtist.getName(), PlaybackContext.Context.ContextType.ARTIST),
+          List.of(), 0, largestImage != null ? largestImage : BigPictureConstants.BLANK);
+        contextCache.put(context.getUri(), contextData);
       }
+      return publish(lookupId, context.toString(), ModelObjectType.ARTIST, contextData);
     }
-    return trackIndex + 1;
+    return null;
   }
 
-  private PlaybackContext.Context getArtistContext(Context context, boolean force) {
-    if (force || didContextChange(context)) {
-      String artistId = context.getHref().replace(BigPictureConstants.ARTIST_PREFIX, "");
-      Artist contextArtist = SpotifyCall.execute(spotifyApi.getArtist(artistId));
-
-      Image[] artistImages = contextArtist.getImages();
-      String largestImage = SpotifyUtils.findLargestImage(artistImages);
-      this.thumbnailUrl = largestImage != null ? largestImage : BigPictureConstants.BLANK;
-
-      this.listTracks = List.of();
-
-      //setTrackCount(contextArtist.getFollowers().getTotal());
-      setTrackCount(0); // Spotify removed the Follower count from the API :(
+  private PlaybackContext.Context getPlaylistContext(Context context, boolean force, ContextSnapshot current, long lookupId) throws MalformedURLException {
+    if (force || didContextChange(context, current)) {
+      String playlistId = SpotifyUtils.getIdFromSpotifyUrl(context.getHref());
 
-      calculateAndSetTotalTrackDuration(List.of());
+      // A large playlist that is still being paged in (e.g. while skipping through it) isn't loaded again from the start
+      PlaylistLoad runningLoad = runningPlaylistLoads.get(context.getUri());
+      if (runningLoad != null) {
+        if (isPlaylistUnchanged(playlistId, runningLoad.publishedData.get())) {
+          // The latest data is read within the update, so a page that is published concurrently is never reverted
+          snapshot.updateAndGet(s -> lookupId == latestLookupId.get() ? s.withContext(context.toString(), ModelObjectType.PLAYLIST, runningLoad.publishedData.get()) : s);
+          return runningLoad.publishedData.get().copyContext();
+        }
+        runningLoad.cancelled = true;
+      }
 
-      return PlaybackContext.Context.of(contextArtist.getName(), PlaybackContext.Context.ContextType.ARTIST);
-    }
-    return null;
-  }
+      ContextData contextData = contextCache.get(context.getUri());
+      if (contextData != null && contextData.isComplete() && isPlaylistUnchanged(playlistId, contextData)) {
+        return publish(lookupId, context.toString(), ModelObjectType.PLAYLIST, contextData);
+      }
 
-  private PlaybackContext.Context getPlaylistContext(Context context, boolean force) throws MalformedURLException {
-    if (force || didContextChange(context)) {
-      String playlistId = SpotifyUtils.getIdFromSpotifyUrl(context.getHref());
       Playlist contextPlaylist = SpotifyCall.execute(spotifyApi.getPlaylist(playlistId));
 
       Image[] playlistImages = contextPlaylist.getImages();
       String largestImage = SpotifyUtils.findLargestImage(playlistImages);
-      this.thumbnailUrl = largestImage != null ? largestImage : BigPictureConstants.BLANK;
 
-      // Limit to 200 for performance reasons
+      // Only the first page is loaded right away, the remaining ones are paged in the background
       Paging<PlaylistTrack> contextTracks = contextPlaylist.getItems();
-      List<PlaylistTrack> playlistTracks = new ArrayList<>(Arrays.asList(contextTracks.getItems()));
+      ContextData firstPageData = new ContextData(
+        PlaybackContext.Context.of(contextPlaylist.getName(), PlaybackContext.Context.ContextType.PLAYLIST, contextPlaylist.getDescription()),
+        toTrackElements(Arrays.asList(contextTracks.getItems()), 0),
+        contextTracks.getTotal(),
+        largestImage != null ? largestImage : BigPictureConstants.BLANK,
+        contextPlaylist.getSnapshotId(),
+        CONTEXT_REVALIDATION_INTERVAL_MS);
+      contextCache.put(context.getUri(), firstPageData);
+      PlaybackContext.Context contextDto = publish(lookupId, context.toString(), ModelObjectType.PLAYLIST, firstPageData);
       if (contextTracks.getNext() != null) {
-        PlaylistTrack[] secondHalf = SpotifyCall.execute(spotifyApi.getPlaylistsItems(playlistId).offset(playlistTracks.size())).getItems();
-        playlistTracks.addAll(Arrays.asList(secondHalf));
-      }
-      this.listTracks = playlistTracks.stream()
-        .map(PlaylistTrack::getItem)
-        .map(TrackElement::fromPlaylistItem)
-        .collect(Collectors.toList());
-      for (int i = 1; i <= listTracks.size(); i++) {
-        this.listTracks.get(i - 1).setTrackNumber(i);
+        PlaylistLoad playlistLoad = new PlaylistLoad(context.toString(), firstPageData);
+        runningPlaylistLoads.put(context.getUri(), playlistLoad);
+        try {
+          playlistPagingExecutor.execute(() -> loadRemainingPlaylistPages(playlistId, context.getUri(), contextTracks, playlistLoad));
+        } catch (RejectedExecutionException e) {
+          runningPlaylistLoads.remove(context.getUri(), playlistLoad);
+        }
       }
+      return contextDto;
+    }
+    return null;
+  }
 
-      Integer realTrackCount = contextPlaylist.getItems().getTotal();
-      setTrackCount(realTrackCount);
-      calculateAndSetTotalTrackDuration(realTrackCount <= this.listTracks.size() ? this.listTracks : List.of());
+  /**
+   * Check whether a cached playlist is still up to date by comparing its snapshot_id,
+   * which only costs a tiny request. To not even do that on every song change, a playlist
+   * is only revalidated once its last check is older than {@link #CONTEXT_REVALIDATION_INTERVAL_MS}.
+   */
+  private boolean isPlaylistUnchanged(String playlistId, ContextData contextData) {
+    if (!contextData.needsRevalidation()) {
+      return true;
+    }
+    Playlist playlistSnapshot = SpotifyCall.execute(spotifyApi.getPlaylist(playlistId).fields("snapshot_id"));
+    if (Objects.equals(playlistSnapshot.getSnapshotId(), contextData.getSnapshotId())) {
+      contextData.markValidated();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Page in the rest of a playlist in the background, so that large playlists don't delay the
+   * context switch itself. After each page, the list tracks are replaced with everything that has
+   * been loaded so far, so the tracklist gradually fills up. Song changes within the playlist keep
+   * the load going (see {@link #getPlaylistContext}). Loading only stops once the snapshot has moved on
+   * to another context or the playlist itself has changed, and only the complete playlist is cached.
+   */
+  private void loadRemainingPlaylistPages(String playlistId, String contextUri, Paging<PlaylistTrack> firstPage, PlaylistLoad playlistLoad) {
+    ContextData firstPageData = playlistLoad.publishedData.get();
+    AtomicReference<ContextData> publishedData = playlistLoad.publishedData;
+    List<TrackElement> loadedTracks = new ArrayList<>(firstPageData.getListTracks());
+    try {
+      parallelPagingFetcher.fetchAll(firstPage,
+        (offset, limit) -> SpotifyCall.execute(spotifyApi.getPlaylistsItems(playlistId).offset(offset).limit(limit)),
+        () -> playlistLoad.cancelled || !playlistLoad.contextKey.equals(snapshot.get().getContextKey()),
+        playlistTracks -> {
+          loadedTracks.addAll(toTrackElements(playlistTracks.subList(loadedTracks.size(), playlistTracks.size()), loadedTracks.size()));
+          ContextData loadedData = firstPageData.withListTracks(List.copyOf(loadedTracks));
+          ContextData previousData = publishedData.getAndSet(loadedData);
+          snapshot.updateAndGet(s -> s.getData() == previousData ? s.withData(loadedData) : s);
+        });
+      ContextData completeData = publishedData.get();
+      if (completeData.isComplete()) {
+        contextCache.put(contextUri, completeData);
+      }
+    } catch (CancellationException e) {
+      // The context has changed in the meantime, the playlist is loaded again the next time it's played
+    } catch (Exception e) {
+      e.printStackTrace();
+    } finally {
+      runningPlaylistLoads.remove(contextUri, playlistLoad);
+    }
+  }
 
-      return PlaybackContext.Context.of(contextPlaylist.getName(), PlaybackContext.Context.ContextType.PLAYLIST, contextPlaylist.getDescription());
+  private List<TrackElement> toTrackElements(List<PlaylistTrack> playlistTracks, int offset) {
+    List<TrackElement> trackElements = playlistTracks.stream()
+      .map(PlaylistTrack::getItem)
+      .map(TrackElement::fromPlaylistItem)
+      .collect(Collectors.toList());
+    for (int i = 0; i < trackElements.size(); i++) {
+      trackElements.get(i).setTrackNumber(offset + i + 1);
     }
-    return null;
+    return trackElements;
   }
 
-  private PlaybackContext.Context getAlbumContext(CurrentlyPlayingContext info, boolean force) {
+  private PlaybackContext.Context getAlbumContext(CurrentlyPlayingContext info, boolean force, ContextSnapshot current, long lookupId) {
     Context context = info.getContext();
     Track track = null;
     String albumId;
@@ -230,45 +312,38 @@ public class ContextProvider {
     }
     albumId = SpotifyUtils.getIdFromUri(context.getUri());
 
-    if (force || didContextChange(context)) {
-      currentContextAlbum = SpotifyCall.execute(spotifyApi.getAlbum(albumId));
-      currentContextAlbumTracks = Arrays.asList(currentContextAlbum.getTracks().getItems());
-
-      if (currentContextAlbum.getTracks().getNext() != null) {
-        List<TrackSimplified> c = SpotifyCall.executePaging(spotifyApi.getAlbumsTracks(albumId).offset(currentContextAlbumTracks.size()));
-        currentContextAlbumTracks = Stream.concat(currentContextAlbumTracks.stream(), c.stream()).collect(Collectors.toList());
+    ContextData albumData = current.getData();
+    if (force || didContextChange(context, current) || albumData.getAlbum() == null) {
+      albumData = contextCache.get(context.getUri());
+      if (albumData == null) {
+        Album album = SpotifyCall.execute(spotifyApi.getAlbum(albumId));
+        Paging<TrackSimplified> firstPage = album.getTracks();
+        List<TrackSimplified> albumTracks = parallelPagingFetcher.fetchAll(firstPage,
+          (offset, limit) -> SpotifyCall.execute(spotifyApi.getAlbumsTracks(albumId).offset(offset).limit(limit)));
+
+        List<TrackElement> albumListTracks = albumTracks.stream()
+          .map(trackSimplified -> TrackElement.fromTrackSimplified(trackSimplified, album))
+          .collect(Collectors.toList());
+
+        // The context name is determined below, as it depends on the currently playing track.
+        // The thumbnail (the artist image) is resolved lazily, to not delay the tracklist for it.
+        albumData = new ContextData(null, albumListTracks, albumListTracks.size(), BigPictureConstants.BLANK, album, albumTracks);
+        contextCache.put(context.getUri(), albumData);
       }
-
-      this.thumbnailUrl = Arrays.stream(currentContextAlbum.getArtists())
-        .findFirst()
-        .map(ArtistSimplified::getId)
-        .map(id -> SpotifyCall.execute(spotifyApi.getArtist(id)))
-        .map(Artist::getImages)
-        .map(SpotifyUtils::findSmallestImage)
-        .orElse(BigPictureConstants.BLANK);
-
-      this.listTracks = currentContextAlbumTracks.stream()
-        .map(trackSimplified -> TrackElement.fromTrackSimplified(trackSimplified, currentContextAlbum))
-        .collect(Collectors.toList());
-
-      setTrackCount(this.listTracks.size());
-      calculateAndSetTotalTrackDuration(this.listTracks);
+      publish(lookupId, context.toString(), ModelObjectType.ALBUM, albumData);
     }
-    String contextString = String.format("%s \u2022 %s", SpotifyUtils.getFirstArtistName(currentContextAlbum), currentContextAlbum.getName());
-    if (currentContextAlbumTracks != null && track != null) {
+    albumData = applyArtistThumbnail(context.getUri(), albumData);
+    Album album = albumData.getAlbum();
+    List<TrackSimplified> albumTracks = albumData.getAlbumTracks();
+    String contextString = String.format("%s \u2022 %s", SpotifyUtils.getFirstArtistName(album), album.getName());
+    if (track != null) {
       // Track number (unfortunately, can't simply use track numbers because of disc numbers)
-      final String trackId = track.getId();
-      TrackSimplified currentTrack = currentContextAlbumTracks.stream()
-        .filter(t -> t.getId().equals(trackId))
-        .findFirst()
-        .orElse(null);
-
-      if (currentTrack != null) {
-        this.currentlyPlayingAlbumTrackNumber = currentContextAlbumTracks.indexOf(currentTrack) + 1;
-        this.currentlyPlayingAlbumTrackDiscNumber = currentTrack.getDiscNumber();
-        if (this.currentlyPlayingAlbumTrackNumber > 0) {
-          return PlaybackContext.Context.of(contextString, getReleaseTypeContextType());
-        }
+      Integer currentTrackIndex = albumData.getAlbumTrackIndex().get(track.getId());
+      if (currentTrackIndex != null) {
+        TrackSimplified currentTrack = albumTracks.get(currentTrackIndex);
+        ContextData publishedData = albumData;
+        snapshot.updateAndGet(s -> s.getData() == publishedData ? s.withAlbumTrackPosition(currentTrackIndex + 1, currentTrack.getDiscNumber()) : s);
+        return PlaybackContext.Context.of(contextString, getReleaseTypeContextType(album, albumTracks));
       }
     }
 
@@ -276,80 +351,141 @@ public class ContextProvider {
     return PlaybackContext.Context.of(contextString, PlaybackContext.Context.ContextType.QUEUE_IN_ALBUM);
   }
 
-  private PlaybackContext.Context getPodcastContext(CurrentlyPlayingContext info, boolean force) {
+  /**
+   * Add the thumbnail of the album's artist to the given album context data, if it's already known.
+   * Otherwise, it's looked up in the background and an {@link ArtworkResolvedEvent} is published
+   * once it's available, so that it's applied with the next update.
+   *
+   * @return the album data with the thumbnail, or the unchanged album data if it's not available yet
+   */
+  private ContextData applyArtistThumbnail(String contextUri, ContextData albumData) {
+    if (!BigPictureConstants.BLANK.equals(albumData.getThumbnailUrl())) {
+      return albumData;
+    }
+    String artistId = Arrays.stream(albumData.getAlbum().getArtists())
+      .findFirst()
+      .map(ArtistSimplified::getId)
+      .orElse(null);
+    if (artistId == null) {
+      return albumData;
+    }
+    String thumbnailUrl = artistThumbnailCache.get(artistId);
+    if (thumbnailUrl == null) {
+      if (pendingThumbnailLookups.add(artistId)) {
+        thumbnailExecutor.execute(() -> resolveArtistThumbnail(artistId));
+      }
+      return albumData;
+    }
+    if (BigPictureConstants.BLANK.equals(thumbnailUrl)) {
+      return albumData;
+    }
+    ContextData albumDataWithThumbnail = albumData.withThumbnailUrl(thumbnailUrl);
+    contextCache.put(contextUri, albumDataWithThumbnail);
+    snapshot.updateAndGet(s -> s.getData() == albumData ? s.withData(albumDataWithThumbnail) : s);
+    return albumDataWithThumbnail;
+  }
+
+  private void resolveArtistThumbnail(String artistId) {
+    try {
+      cacheArtistThumbnail(SpotifyCall.execute(spotifyApi.getArtist(artistId)));
+    } catch (Exception e) {
+      e.printStackTrace();
+      artistThumbnailCache.put(artistId, BigPictureConstants.BLANK);
+    } finally {
+      pendingThumbnailLookups.remove(artistId);
+    }
+    if (!BigPictureConstants.BLANK.equals(artistThumbnailCache.get(artistId))) {
+      eventPublisher.publishEvent(new ArtworkResolvedEvent(this, ArtworkResolvedEvent.ArtworkType.THUMBNAIL, artistId));
+    }
+  }
+
+  private void cacheArtistThumbnail(Artist artist) {
+    String smallestImage = SpotifyUtils.findSmallestImage(artist.getImages());
+    artistThumbnailCache.put(artist.getId(), smallestImage != null ? smallestImage : BigPictureConstants.BLANK);
+  }
+
+  private PlaybackContext.Context getPodcastContext(CurrentlyPlayingContext info, ModelObjectType type, boolean force, ContextSnapshot current, long lookupId) {
     if (info.getItem() instanceof Episode) {
       Episode episode = (Episode) info.getItem();
       ShowSimplified showSimplified = episode.getShow();
-      if (force || didContextChange(episode.toString())) {
-        Image[] artistImages = showSimplified.getImages();
-        String largestImage = SpotifyUtils.findLargestImage(artistImages);
-        this.thumbnailUrl = largestImage != null ? largestImage : BigPictureConstants.BLANK;
-
-        Show show = SpotifyCall.execute(spotifyApi.getShow(showSimplified.getId()));
-        setTrackCount(show.getEpisodes().getTotal());
-        calculateAndSetTotalTrackDuration(List.of());
-
-        return PlaybackContext.Context.of(show.getName(), PlaybackContext.Context.ContextType.PODCAST, episode.getShow().getDescription());
+      if (force || didContextChange(episode.toString(), current)) {
+        ContextData contextData = contextCache.get(showSimplified.getUri());
+        if (contextData == null || contextData.needsRevalidation()) {
+          Image[] artistImages = showSimplified.getImages();
+          String largestImage = SpotifyUtils.findLargestImage(artistImages);
+
+          Show show = SpotifyCall.execute(spotifyApi.getShow(showSimplified.getId()));
+          contextData = new ContextData(PlaybackContext.Context.of(show.getName(), PlaybackContext.Context.ContextType.PODCAST, episode.getShow().getDescription()),
+            null, show.getEpisodes().getTotal(), largestImage != null ? largestImage : BigPictureConstants.BLANK, CONTEXT_REVALIDATION_INTERVAL_MS);
+          contextCache.put(showSimplified.getUri(), contextData);
+        }
+        return publish(lookupId, episode.toString(), type, contextData);
       }
     }
     return null;
   }
 
-  private PlaybackContext.Context getUserFavoriteTracksContext(Context context, boolean force) {
-    if (force || didContextChange(context)) {
-      Paging<SavedTrack> usersSavedTracks = SpotifyCall.execute(spotifyApi.getUsersSavedTracks());
+  private PlaybackContext.Context getUserFavoriteTracksContext(Context context, boolean force, ContextSnapshot current, long lookupId) {
+    if (force || didContextChange(context, current)) {
+      ContextData contextData = contextCache.get(context.getUri());
+      if (contextData == null || contextData.needsRevalidation()) {
+        Paging<SavedTrack> usersSavedTracks = SpotifyCall.execute(spotifyApi.getUsersSavedTracks());
 
-      User user = SpotifyCall.execute(spotifyApi.getCurrentUsersProfile());
+        User user = SpotifyCall.execute(spotifyApi.getCurrentUsersProfile());
 
-      Image[] artistImages = user.getImages();
-      String largestImage = SpotifyUtils.findLargestImage(artistImages);
-      this.thumbnailUrl = largestImage != null ? largestImage : BigPictureConstants.BLANK;
-
-      this.listTracks = List.of();
-
-      setTrackCount(usersSavedTracks.getTotal());
-      calculateAndSetTotalTrackDuration(List.of());
+        Image[] artistImages = user.getImages();
+        String largestImage = SpotifyUtils.findLargestImage(artistImages);
 
-      return PlaybackContext.Context.of(user.getDisplayName(), PlaybackContext.Context.ContextType.FAVORITE_TRACKS);
+        contextData = new ContextData(PlaybackContext.Context.of(user.getDisplayName(), PlaybackContext.Context.ContextType.FAVORITE_TRACKS),
+          List.of(), usersSavedTracks.getTotal(), largestImage != null ? largestImage : BigPictureConstants.BLANK, CONTEXT_REVALIDATION_INTERVAL_MS);
+        contextCache.put(context.getUri(), contextData);
+      }
+      return publish(lookupId, context.toString(), ModelObjectType.USER, contextData);
     }
     return null;
   }
 
-  private PlaybackContext.Context getFallbackContext(CurrentlyPlayingContext info) {
+  private PlaybackContext.Context getFallbackContext(CurrentlyPlayingContext info, long lookupId) {
     if (info.getItem() != null && info.getItem() instanceof Track) {
       Track track = (Track) info.getItem();
       Image[] trackImages = track.getAlbum().getImages();
       String smallestImage = SpotifyUtils.findSmallestImage(trackImages);
-      this.thumbnailUrl = smallestImage != null ? smallestImage : BigPictureConstants.BLANK;
 
-      this.listTracks = List.of(TrackElement.fromPlaylistItem(track));
-      setTrackCount(this.listTracks.size());
-      calculateAndSetTotalTrackDuration(this.listTracks);
+      List<TrackElement> listTracks = List.of(TrackElement.fromPlaylistItem(track));
+      ContextData contextData = new ContextData(null, listTracks, listTracks.size(), smallestImage != null ? smallestImage : BigPictureConstants.BLANK);
+      publish(lookupId, null, null, contextData);
 
       return PlaybackContext.Context.of(SpotifyUtils.getFirstArtistName(track) + " \u2022 " + track.getName(), PlaybackContext.Context.ContextType.SEARCH);
     }
     return PlaybackContext.Context.of("Spotify", PlaybackContext.Context.ContextType.FALLBACK);
   }
 
-  private PlaybackContext.Context.ContextType getReleaseTypeContextType() {
-    if (currentContextAlbum.getAlbumType() == AlbumType.SINGLE) {
-      AlbumTrackPair atp = AlbumTrackPair.of(SpotifyUtils.asAlbumSimplified(currentContextAlbum), currentContextAlbumTracks);
+  private PlaybackContext.Context.ContextType getReleaseTypeContextType(Album album, List<TrackSimplified> albumTracks) {
+    if (album.getAlbumType() == AlbumType.SINGLE) {
+      AlbumTrackPair atp = AlbumTrackPair.of(SpotifyUtils.asAlbumSimplified(album), albumTracks);
       if (SpotifyUtils.isExtendedPlay(atp)) {
         return PlaybackContext.Context.ContextType.EP;
       }
     }
-    return PlaybackContext.Context.ContextType.valueOf(currentContextAlbum.getAlbumType().toString());
+    return PlaybackContext.Context.ContextType.valueOf(album.getAlbumType().toString());
   }
 
-  private boolean didContextChange(Context context) {
-    return didContextChange(context.toString());
+  private boolean didContextChange(Context context, ContextSnapshot current) {
+    return didContextChange(context.toString(), current);
   }
 
-  private boolean didContextChange(String contextString) {
-    if (!contextString.equals(previousSpotifyContext)) {
-      this.previousSpotifyContext = contextString;
-      return true;
+  private boolean didContextChange(String contextString, ContextSnapshot current) {
+    return !contextString.equals(current.getContextKey());
+  }
+
+  private static class PlaylistLoad {
+    private final String contextKey;
+    private final AtomicReference<ContextData> publishedData;
+    private volatile boolean cancelled;
+
+    private PlaylistLoad(String contextKey, ContextData firstPageData) {
+      this.contextKey = contextKey;
+      this.publishedData = new AtomicReference<>(firstPageData);
     }
-    return false;
   }
 }
@@ -0,0 +1,134 @@
+package spotify.playback.data.visual;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import se.michaelthelin.spotify.enums.ModelObjectType;
+import se.michaelthelin.spotify.model_objects.miscellaneous.CurrentlyPlayingContext;
+import se.michaelthelin.spotify.model_objects.specification.ArtistSimplified;
+import se.michaelthelin.spotify.model_objects.specification.Episode;
+import se.michaelthelin.spotify.model_objects.specification.TrackSimplified;
+import spotify.playback.data.dto.sub.TrackElement;
+
+/**
+ * An immutable view of the currently playing context. A new snapshot is published by the
+ * {@link ContextProvider} whenever anything about the context changes, so readers always
+ * see a consistent state, even while the next context is being loaded concurrently.
+ */
+public class ContextSnapshot {
+  static final ContextSnapshot EMPTY = new ContextSnapshot(null, null, ContextData.EMPTY, ContextData.EMPTY, null, null);
+
+  private final String contextKey;
+  private final ModelObjectType type;
+  private final ContextData data;
+  private final ContextData listData;
+  private final Integer currentlyPlayingAlbumTrackNumber;
+  private final Integer currentlyPlayingAlbumTrackDiscNumber;
+
+  private ContextSnapshot(String contextKey, ModelObjectType type, ContextData data, ContextData listData, Integer currentlyPlayingAlbumTrackNumber, Integer currentlyPlayingAlbumTrackDiscNumber) {
+    this.contextKey = contextKey;
+    this.type = type;
+    this.data = data;
+    this.listData = listData;
+    this.currentlyPlayingAlbumTrackNumber = currentlyPlayingAlbumTrackNumber;
+    this.currentlyPlayingAlbumTrackDiscNumber = currentlyPlayingAlbumTrackDiscNumber;
+  }
+
+  /**
+   * Create the snapshot for a newly loaded context. Data without any list tracks of its own
+   * (podcasts) keeps displaying the list tracks of the previous snapshot.
+   */
+  ContextSnapshot withContext(String contextKey, ModelObjectType type, ContextData data) {
+    return new ContextSnapshot(contextKey, type, data, data.hasListTracks() ? data : this.listData, null, null);
+  }
+
+  ContextSnapshot withData(ContextData data) {
+    return new ContextSnapshot(contextKey, type, data, data.hasListTracks() ? data : this.listData, currentlyPlayingAlbumTrackNumber, currentlyPlayingAlbumTrackDiscNumber);
+  }
+
+  ContextSnapshot withType(ModelObjectType type) {
+    return new ContextSnapshot(contextKey, type, data, listData, currentlyPlayingAlbumTrackNumber, currentlyPlayingAlbumTrackDiscNumber);
+  }
+
+  ContextSnapshot withAlbumTrackPosition(Integer trackNumber, Integer discNumber) {
+    return new ContextSnapshot(contextKey, type, data, listData, trackNumber, discNumber);
+  }
+
+  String getContextKey() {
+    return contextKey;
+  }
+
+  ModelObjectType getType() {
+    return type;
+  }
+
+  ContextData getData() {
+    return data;
+  }
+
+  public List<TrackElement> getListTracks() {
+    return listData.getListTracks();
+  }
+
+  public Integer getCurrentlyPlayingAlbumTrackNumber() {
+    return currentlyPlayingAlbumTrackNumber;
+  }
+
+  public Integer getCurrentlyPlayingAlbumTrackDiscNumber() {
+    return currentlyPlayingAlbumTrackDiscNumber;
+  }
+
+  public Integer getTotalDiscCount() {
+    List<TrackSimplified> albumTracks = data.getAlbumTracks();
+    return albumTracks != null
+      ? albumTracks.stream().mapToInt(TrackSimplified::getDiscNumber).max().orElse(1)
+      : 1;
+  }
+
+  public Integer getTrackCount() {
+    return data.getTrackCount();
+  }
+
+  public Long getTotalTime() {
+    return data.getTotalTrackDuration();
+  }
+
+  public String getThumbnailUrl() {
+    return data.getThumbnailUrl();
+  }
+
+  /**
+   * @return the ID of the artist whose image serves as the thumbnail of an album context, null for any other context
+   */
+  public String getThumbnailArtistId() {
+    if (data.getAlbum() == null || data.getAlbum().getArtists() == null) {
+      return null;
+    }
+    return Arrays.stream(data.getAlbum().getArtists())
+      .findFirst()
+      .map(ArtistSimplified::getId)
+      .orElse(null);
+  }
+
+  public Integer getCurrentlyPlayingPlaylistTrackNumber(CurrentlyPlayingContext context) {
+    int trackIndex = -1;
+    if (context.getItem() != null && context.getItem().getId() != null) {
+      String id = context.getItem().getId();
+      trackIndex = listData.getListTrackIndexById().getOrDefault(id, -1);
+      if (trackIndex < 0 && context.getItem() instanceof Episode) {
+        Episode episode = (Episode) context.getItem();
+        trackIndex = listData.getListTrackIndexByTitle().getOrDefault(episode.getName(), -1);
+        if (trackIndex < 0) {
+          // Rare case of an episode whose title was only partially matched
+          List<TrackElement> listTracks = listData.getListTracks();
+          trackIndex = IntStream.range(0, listTracks.size())
+            .filter(i -> listTracks.get(i).getTitle().contains(episode.getName()))
+            .findFirst()
+            .orElse(-1);
+        }
+      }
+    }
+    return trackIndex + 1;
+  }
+}
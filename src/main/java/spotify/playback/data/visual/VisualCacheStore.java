@@ -0,0 +1,251 @@
+package spotify.playback.data.visual;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import de.selbi.colorfetch.data.ColorFetchResult;
+import spotify.playback.data.help.BoundedCache;
+
+/**
+ * Optional on-disk store for resolved artwork URLs, HD artwork URLs and artwork colors, so that
+ * they survive restarts. The store is an append-only JSON lines file (one record per resolved value)
+ * inside the directory set with <code>cache.persistence.dir</code>. If that property isn't set,
+ * nothing is persisted and all lookups miss.<br/>
+ * The file is read in the background after startup; lookups made before it's fully loaded simply miss.<br/>
+ * Only the most recently used <code>cache.persistence.max.entries</code> entries per type are kept in memory
+ * and written back when the file is compacted. Compaction happens periodically once the file has grown to
+ * twice the number of entries, and immediately once it reaches twice the maximum number of entries.
+ */
+@Component
+public class VisualCacheStore {
+  private static final String STORE_FILE_NAME = "visual-cache.jsonl";
+  private static final int COMPACTION_RATIO = 2;
+  private static final int DEFAULT_MAX_ENTRIES = 5000;
+  private static final long COMPACTION_INTERVAL_MS = 10 * 60 * 1000;
+
+  enum RecordType {
+    URL, HD, COLOR
+  }
+
+  @Value("${cache.persistence.dir:#{null}}")
+  private String persistenceDir;
+
+  @Value("${cache.persistence.max.entries:" + DEFAULT_MAX_ENTRIES + "}")
+  private int maxEntries;
+
+  private BoundedCache<String, String> artworkUrls;
+  private BoundedCache<String, String> artworkUrlsHD;
+  private BoundedCache<String, ColorFetchResult> colors;
+  private final ObjectMapper objectMapper;
+
+  private Path storeFile;
+  private BufferedWriter writer;
+  private int lineCount;
+  private volatile boolean loaded;
+
+  private final Logger logger = Logger.getLogger(VisualCacheStore.class.getName());
+
+  VisualCacheStore() {
+    this.objectMapper = new ObjectMapper();
+    this.loaded = false;
+  }
+
+  @PostConstruct
+  void loadInBackground() {
+    this.artworkUrls = new BoundedCache<>("Persisted artwork URLs", maxEntries);
+    this.artworkUrlsHD = new BoundedCache<>("Persisted HD artwork URLs", maxEntries);
+    this.colors = new BoundedCache<>("Persisted artwork colors", maxEntries);
+    if (isEnabled()) {
+      this.storeFile = Path.of(persistenceDir, STORE_FILE_NAME);
+      CompletableFuture.runAsync(this::load);
+    }
+  }
+
+  @PreDestroy
+  synchronized void close() {
+    if (writer != null) {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+      writer = null;
+    }
+  }
+
+  public String getArtworkUrl(String uri) {
+    return artworkUrls.get(uri);
+  }
+
+  public String getArtworkUrlHD(String uri) {
+    return artworkUrlsHD.get(uri);
+  }
+
+  public ColorFetchResult getColors(String imageUrl) {
+    return colors.get(imageUrl);
+  }
+
+  public void putArtworkUrl(String uri, String url) {
+    if (isWritable() && !url.equals(artworkUrls.get(uri))) {
+      artworkUrls.put(uri, url);
+      append(RecordType.URL, uri, objectMapper.getNodeFactory().textNode(url));
+    }
+  }
+
+  public void putArtworkUrlHD(String uri, String url) {
+    if (isWritable() && !url.equals(artworkUrlsHD.get(uri))) {
+      artworkUrlsHD.put(uri, url);
+      append(RecordType.HD, uri, objectMapper.getNodeFactory().textNode(url));
+    }
+  }
+
+  public void putColors(String imageUrl, ColorFetchResult colorFetchResult) {
+    if (isWritable() && colors.get(imageUrl) == null) {
+      colors.put(imageUrl, colorFetchResult);
+      append(RecordType.COLOR, imageUrl, objectMapper.valueToTree(colorFetchResult));
+    }
+  }
+
+  /**
+   * Rewrite the file with only the entries still held in memory, once it has accumulated enough
+   * overwritten or evicted records.
+   */
+  @Scheduled(fixedDelay = COMPACTION_INTERVAL_MS, initialDelay = COMPACTION_INTERVAL_MS)
+  public synchronized void compactIfNeeded() {
+    if (isWritable() && lineCount > getEntryCount() * COMPACTION_RATIO) {
+      try {
+        compact();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
+  private boolean isEnabled() {
+    return persistenceDir != null;
+  }
+
+  /**
+   * Values resolved while the file is still being read aren't persisted,
+   * they will simply be stored the next time they're resolved.
+   */
+  private boolean isWritable() {
+    return isEnabled() && loaded;
+  }
+
+  private int getEntryCount() {
+    return artworkUrls.size() + artworkUrlsHD.size() + colors.size();
+  }
+
+  private synchronized void load() {
+    try {
+      Files.createDirectories(storeFile.getParent());
+      if (Files.exists(storeFile)) {
+        // Later records win, and once a cache is full the least recently written entries are evicted
+        try (BufferedReader reader = Files.newBufferedReader(storeFile, StandardCharsets.UTF_8)) {
+          String line;
+          while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+              lineCount++;
+              readRecord(line);
+            }
+          }
+        }
+      }
+      if (lineCount > getEntryCount() * COMPACTION_RATIO) {
+        compact();
+      }
+      logger.info("Loaded " + getEntryCount() + " persisted artwork/color entries from " + storeFile);
+    } catch (IOException e) {
+      e.printStackTrace();
+    } finally {
+      loaded = true;
+    }
+  }
+
+  private void readRecord(String line) {
+    try {
+      JsonNode record = objectMapper.readTree(line);
+      String key = record.get("key").asText();
+      JsonNode value = record.get("value");
+      switch (RecordType.valueOf(record.get("type").asText())) {
+        case URL:
+          artworkUrls.put(key, value.asText());
+          break;
+        case HD:
+          artworkUrlsHD.put(key, value.asText());
+          break;
+        case COLOR:
+          colors.put(key, objectMapper.treeToValue(value, ColorFetchResult.class));
+          break;
+      }
+    } catch (Exception e) {
+      // A partially written last line after a crash shouldn't prevent loading the rest
+      logger.warning("Skipping unreadable persisted cache record: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Entries are written from the least to the most recently used one, so that the order
+   * (and with it the eviction order) is kept when the file is loaded again.
+   */
+  private synchronized void compact() throws IOException {
+    // The writer would otherwise keep appending to the replaced file
+    close();
+    Path tempFile = storeFile.resolveSibling(STORE_FILE_NAME + ".tmp");
+    List<String> lines = new ArrayList<>();
+    artworkUrls.snapshot().forEach((key, value) -> lines.add(toRecord(RecordType.URL, key, objectMapper.getNodeFactory().textNode(value))));
+    artworkUrlsHD.snapshot().forEach((key, value) -> lines.add(toRecord(RecordType.HD, key, objectMapper.getNodeFactory().textNode(value))));
+    colors.snapshot().forEach((key, value) -> lines.add(toRecord(RecordType.COLOR, key, objectMapper.valueToTree(value))));
+    Files.write(tempFile, lines, StandardCharsets.UTF_8);
+    Files.move(tempFile, storeFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    lineCount = lines.size();
+  }
+
+  private synchronized void append(RecordType type, String key, JsonNode value) {
+    try {
+      if (writer == null) {
+        writer = Files.newBufferedWriter(storeFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+      }
+      writer.write(toRecord(type, key, value));
+      writer.newLine();
+      writer.flush();
+      lineCount++;
+      // Hard limit for the file size, regardless of the periodic compaction
+      if (lineCount > maxEntries * RecordType.values().length * COMPACTION_RATIO) {
+        compact();
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  private String toRecord(RecordType type, String key, JsonNode value) {
+    ObjectNode record = objectMapper.createObjectNode();
+    record.put("type", type.name());
+    record.put("key", key);
+    record.set("value", value);
+    return record.toString();
+  }
+}
@@ -1,14 +1,27 @@
 package spotify.playback.data.visual.artwork;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 import se.michaelthelin.spotify.model_objects.IPlaylistItem;
+import se.michaelthelin.spotify.model_objects.specification.AlbumSimplified;
+import se.michaelthelin.spotify.model_objects.specification.Track;
+import spotify.playback.data.events.ArtworkResolvedEvent;
 import spotify.playback.data.help.BigPictureConstants;
+import spotify.playback.data.help.BoundedCache;
+import spotify.playback.data.visual.VisualCacheStore;
 import spotify.playback.data.visual.artwork.service.ArtworkUrlProvider;
 import spotify.playback.data.visual.artwork.service.DictionaryArtworkUrlProvider;
 import spotify.playback.data.visual.artwork.service.ITunesHDArtworkProvider;
@@ -16,21 +29,54 @@ import spotify.playback.data.visual.artwork.service.SpotifyArtworkUrlProvider;
 
 @Component
 public class ArtworkUrlCache {
+  private static final int HD_RESOLVER_THREADS = 2;
+  private static final int DEFAULT_CACHE_SIZE = 2000;
+  private static final int DEFAULT_COLOR_IMAGE_MIN_SIZE = 64;
 
   private final DictionaryArtworkUrlProvider dictionaryArtworkUrlProvider;
   private final ITunesHDArtworkProvider iTunesHDArtworkProvider;
   private final SpotifyArtworkUrlProvider spotifyArtworkUrlProvider;
+  private final ApplicationEventPublisher eventPublisher;
+  private final VisualCacheStore visualCacheStore;
+
+  @Value("${artwork.cache.size:" + DEFAULT_CACHE_SIZE + "}")
+  private int artworkCacheSize;
+
+  @Value("${artwork.cache.hd.size:" + DEFAULT_CACHE_SIZE + "}")
+  private int artworkCacheSizeHD;
+
+  @Value("${colors.image.min.size:" + DEFAULT_COLOR_IMAGE_MIN_SIZE + "}")
+  private int colorImageMinSize;
+
+  private BoundedCache<String, String> artworkUrlCache;
+  private BoundedCache<String, String> artworkUrlCacheHD;
+  private final Set<String> pendingHDLookups;
+  private final ExecutorService hdResolver;
 
-  private final Map<IPlaylistItem, String> artworkUrlCache;
-  private final Map<IPlaylistItem, String> artworkUrlCacheHD;
+  private final Logger logger = Logger.getLogger(ArtworkUrlCache.class.getName());
 
-  public ArtworkUrlCache(DictionaryArtworkUrlProvider dictionaryArtworkUrlProvider, ITunesHDArtworkProvider iTunesHDArtworkProvider, SpotifyArtworkUrlProvider spotifyArtworkUrlProvider) {
+  public ArtworkUrlCache(DictionaryArtworkUrlProvider dictionaryArtworkUrlProvider, ITunesHDArtworkProvider iTunesHDArtworkProvider, SpotifyArtworkUrlProvider spotifyArtworkUrlProvider, ApplicationEventPublisher eventPublisher, VisualCacheStore visualCacheStore) {
     this.dictionaryArtworkUrlProvider = dictionaryArtworkUrlProvider;
     this.iTunesHDArtworkProvider = iTunesHDArtworkProvider;
     this.spotifyArtworkUrlProvider = spotifyArtworkUrlProvider;
+    this.eventPublisher = eventPublisher;
+    this.visualCacheStore = visualCacheStore;
 
-    this.artworkUrlCache = new ConcurrentHashMap<>();
-    this.artworkUrlCacheHD = new ConcurrentHashMap<>();
+    this.pendingHDLookups = ConcurrentHashMap.newKeySet();
+    this.hdResolver = Executors.newFixedThreadPool(HD_RESOLVER_THREADS);
+  }
+
+  @PostConstruct
+  void initCaches() {
+    this.artworkUrlCache = new BoundedCache<>("Artwork URL cache", artworkCacheSize);
+    this.artworkUrlCacheHD = new BoundedCache<>("HD artwork URL cache", artworkCacheSizeHD);
+  }
+
+  @PreDestroy
+  void shutdownHDResolver() {
+    hdResolver.shutdownNow();
+    logger.info(artworkUrlCache.toString());
+    logger.info(artworkUrlCacheHD.toString());
   }
 
   /**
@@ -42,21 +88,100 @@ public class ArtworkUrlCache {
    * @return the URL, empty string if none was found
    */
   public String getSpotifyArtworkUrl(IPlaylistItem item) {
-    if (!artworkUrlCache.containsKey(item)) {
-      List<ArtworkUrlProvider> urlProviders = List.of(dictionaryArtworkUrlProvider, spotifyArtworkUrlProvider);
-      String urlForPlaylistItem = getUrlForPlaylistItem(item, urlProviders);
-      artworkUrlCache.put(item, urlForPlaylistItem);
+    // Custom images are defined per track, so they have to be checked before the album-wide cache
+    Optional<String> customImageUrl = dictionaryArtworkUrlProvider.getImageUrlFromItem(item);
+    if (customImageUrl.isPresent()) {
+      return customImageUrl.get();
+    }
+
+    String cacheKey = getCacheKey(item);
+    String cachedUrl = artworkUrlCache.get(cacheKey);
+    if (cachedUrl == null) {
+      cachedUrl = visualCacheStore.getArtworkUrl(cacheKey);
+      if (cachedUrl == null) {
+        cachedUrl = getUrlForPlaylistItem(item, List.of(spotifyArtworkUrlProvider));
+        if (!BigPictureConstants.BLANK.equals(cachedUrl)) {
+          visualCacheStore.putArtworkUrl(cacheKey, cachedUrl);
+        }
+      }
+      artworkUrlCache.put(cacheKey, cachedUrl);
+    }
+    return cachedUrl;
+  }
+
+  /**
+   * Find the URL of the artwork to extract the colors from. Dominant colors don't need the full resolution,
+   * so this is the smallest Spotify image of at least <code>colors.image.min.size</code> pixels (64 by default),
+   * which is a fraction of the download and decoding effort of the largest one.
+   *
+   * @param item the item (either track or podcast)
+   * @return the URL, or the regular artwork URL if there's no smaller image
+   */
+  public String getColorArtworkUrl(IPlaylistItem item) {
+    if (dictionaryArtworkUrlProvider.getImageUrlFromItem(item).isPresent()) {
+      return getSpotifyArtworkUrl(item);
     }
-    return artworkUrlCache.get(item);
+    return spotifyArtworkUrlProvider.getSmallImageUrlFromItem(item, colorImageMinSize)
+      .orElseGet(() -> getSpotifyArtworkUrl(item));
   }
 
+  /**
+   * Find the HD artwork URL of the given item from iTunes. This never blocks on the iTunes
+   * search: if the URL hasn't been resolved yet, the lookup is started in the background
+   * and BLANK is returned in the meantime. Once the lookup completes, an {@link ArtworkResolvedEvent}
+   * is published so that the playback info can be upgraded with the HD URL.
+   *
+   * @param item the item (either track or podcast)
+   * @return the URL, or BLANK if none was found (yet)
+   */
   public String findITunesHDArtworkUrl(IPlaylistItem item) {
-    if (!artworkUrlCacheHD.containsKey(item)) {
-      List<ArtworkUrlProvider> urlProviders = List.of(iTunesHDArtworkProvider);
-      String urlForPlaylistItem = getUrlForPlaylistItem(item, urlProviders);
-      artworkUrlCacheHD.put(item, urlForPlaylistItem);
+    String cacheKey = getCacheKey(item);
+    String cachedUrl = artworkUrlCacheHD.get(cacheKey);
+    if (cachedUrl != null) {
+      return cachedUrl;
+    }
+    String persistedUrl = visualCacheStore.getArtworkUrlHD(cacheKey);
+    if (persistedUrl != null) {
+      artworkUrlCacheHD.put(cacheKey, persistedUrl);
+      return persistedUrl;
+    }
+    if (pendingHDLookups.add(cacheKey)) {
+      hdResolver.execute(() -> resolveITunesHDArtworkUrl(cacheKey, item));
+    }
+    return BigPictureConstants.BLANK;
+  }
+
+  private void resolveITunesHDArtworkUrl(String cacheKey, IPlaylistItem item) {
+    String url = BigPictureConstants.BLANK;
+    try {
+      url = getUrlForPlaylistItem(item, List.of(iTunesHDArtworkProvider));
+    } finally {
+      artworkUrlCacheHD.put(cacheKey, url);
+      pendingHDLookups.remove(cacheKey);
+    }
+    if (!BigPictureConstants.BLANK.equals(url)) {
+      visualCacheStore.putArtworkUrlHD(cacheKey, url);
+      eventPublisher.publishEvent(new ArtworkResolvedEvent(this, ArtworkResolvedEvent.ArtworkType.HD, cacheKey));
+    }
+  }
+
+  /**
+   * Tracks share the artwork of their album, so they are cached by the album URI. That way,
+   * an entire album only costs a single lookup. Anything without an album (podcast episodes, local files)
+   * falls back to its own URI. Either way, the cache doesn't keep entire Track/Episode objects alive.<br/>
+   * This is also the key of the {@link ArtworkResolvedEvent} for the HD artwork.
+   *
+   * @param item the item (either track or podcast)
+   * @return the cache key
+   */
+  public String getCacheKey(IPlaylistItem item) {
+    if (item instanceof Track) {
+      AlbumSimplified album = ((Track) item).getAlbum();
+      if (album != null && album.getUri() != null && album.getId() != null) {
+        return album.getUri();
+      }
     }
-    return artworkUrlCacheHD.get(item);
+    return item.getUri() != null ? item.getUri() : item.getName();
   }
 
   private String getUrlForPlaylistItem(IPlaylistItem item, List<ArtworkUrlProvider> urlProviders) {
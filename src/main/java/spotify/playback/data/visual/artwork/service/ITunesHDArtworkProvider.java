@@ -3,10 +3,10 @@ package spotify.playback.data.visual.artwork.service;
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Optional;
 
-import org.jsoup.Jsoup;
 import org.springframework.stereotype.Component;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -17,6 +17,7 @@ import com.neovisionaries.i18n.CountryCode;
 
 import se.michaelthelin.spotify.model_objects.IPlaylistItem;
 import se.michaelthelin.spotify.model_objects.specification.Track;
+import spotify.playback.data.help.SharedHttpClient;
 import spotify.services.UserService;
 import spotify.util.SpotifyUtils;
 
@@ -26,10 +27,14 @@ import spotify.util.SpotifyUtils;
  */
 @Component
 public class ITunesHDArtworkProvider implements ArtworkUrlProvider {
+  private static final Duration SEARCH_TIMEOUT = Duration.ofSeconds(5);
+
   private final UserService userService;
+  private final SharedHttpClient sharedHttpClient;
 
-  ITunesHDArtworkProvider(UserService userService) {
+  ITunesHDArtworkProvider(UserService userService, SharedHttpClient sharedHttpClient) {
     this.userService = userService;
+    this.sharedHttpClient = sharedHttpClient;
   }
 
   @Override
@@ -61,7 +66,7 @@ public class ITunesHDArtworkProvider implements ArtworkUrlProvider {
       .queryParam("term", searchQuery)
       .build().toUriString();
 
-    String rawJson = Jsoup.connect(url).ignoreContentType(true).execute().body();
+    String rawJson = sharedHttpClient.getString(url, null, SEARCH_TIMEOUT);
     JsonObject json = JsonParser.parseString(rawJson).getAsJsonObject();
 
     JsonArray results = json.getAsJsonArray("results");
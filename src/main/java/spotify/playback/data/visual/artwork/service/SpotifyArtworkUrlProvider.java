@@ -1,5 +1,7 @@
 package spotify.playback.data.visual.artwork.service;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Optional;
 
 import org.springframework.stereotype.Component;
@@ -15,14 +17,40 @@ public class SpotifyArtworkUrlProvider implements ArtworkUrlProvider {
 
   @Override
   public Optional<String> getImageUrlFromItem(IPlaylistItem item) {
-    Image[] images;
-    if (item instanceof Track) {
-      images = ((Track) item).getAlbum().getImages();
-    } else if (item instanceof Episode) {
-      images = ((Episode) item).getImages();
-    } else {
+    Image[] images = getImages(item);
+    if (images == null) {
       return Optional.empty();
     }
     return Optional.ofNullable(SpotifyUtils.findLargestImage(images));
   }
+
+  /**
+   * Find the smallest image of the given item that is still at least the given size in both dimensions.
+   * Used for things that don't need the full resolution, such as the color extraction.
+   *
+   * @param item    the item (either track or podcast)
+   * @param minSize the minimum width and height in pixels
+   * @return the URL of the image, or the largest image if none of them specify their dimensions
+   */
+  public Optional<String> getSmallImageUrlFromItem(IPlaylistItem item, int minSize) {
+    Image[] images = getImages(item);
+    if (images == null) {
+      return Optional.empty();
+    }
+    Optional<String> smallImage = Arrays.stream(images)
+      .filter(image -> image.getWidth() != null && image.getHeight() != null)
+      .filter(image -> image.getWidth() >= minSize && image.getHeight() >= minSize)
+      .min(Comparator.comparingInt(Image::getWidth))
+      .map(Image::getUrl);
+    return smallImage.or(() -> Optional.ofNullable(SpotifyUtils.findLargestImage(images)));
+  }
+
+  private Image[] getImages(IPlaylistItem item) {
+    if (item instanceof Track) {
+      return ((Track) item).getAlbum().getImages();
+    } else if (item instanceof Episode) {
+      return ((Episode) item).getImages();
+    }
+    return null;
+  }
 }
@@ -1,9 +1,34 @@
 package spotify.playback.data.visual.color;
 
+import java.util.List;
+import java.util.function.BiConsumer;
+
 import de.selbi.colorfetch.data.ColorFetchResult;
 
 public interface ColorProvider {
   float NORMALIZE = 1.0f;
 
   ColorFetchResult getDominantColorFromImageUrl(String artworkUrl);
+
+  /**
+   * Get the dominant colors of multiple images at once. Each result is passed on to the
+   * consumer as soon as it's available. By default, the images are simply processed one by one,
+   * stopping early once the calling thread has been interrupted.
+   *
+   * @param artworkUrls    the image URLs
+   * @param resultConsumer receives the URL and colors of every processed image
+   */
+  default void getDominantColorsFromImageUrls(List<String> artworkUrls, BiConsumer<String, ColorFetchResult> resultConsumer) {
+    for (String artworkUrl : artworkUrls) {
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+      resultConsumer.accept(artworkUrl, getDominantColorFromImageUrl(artworkUrl));
+    }
+  }
+
+  /**
+   * @return the name of the color extraction strategy used by this provider
+   */
+  String getStrategy();
 }
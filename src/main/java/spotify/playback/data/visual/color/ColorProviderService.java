@@ -1,54 +1,346 @@
 package spotify.playback.data.visual.color;
 
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import de.selbi.colorfetch.data.ColorFetchResult;
-import spotify.playback.data.dto.sub.ImageData;
+import spotify.playback.data.events.ArtworkResolvedEvent;
 import spotify.playback.data.help.BigPictureConstants;
+import spotify.playback.data.help.BoundedCache;
+import spotify.playback.data.help.SharedHttpClient;
+import spotify.playback.data.visual.VisualCacheStore;
 
 @Service
 public class ColorProviderService {
+  private static final int DEFAULT_CACHE_SIZE = 2000;
+  private static final int DEFAULT_WORKER_THREADS = 2;
+  private static final int DEFAULT_QUEUE_SIZE = 16;
+  private static final long DEFAULT_JOB_TIMEOUT_MS = 10 * 1000;
+  private static final long STALE_JOB_MS = 5 * 1000;
+  private static final long STALE_PREFETCH_JOB_MS = 60 * 1000;
+  private static final int DEFAULT_FAILURE_MAX_ATTEMPTS = 3;
+  private static final long DEFAULT_FAILURE_BACKOFF_MINUTES = 10;
+
   @Value("${colorfetch.url:#{null}}")
   private String colorFetchServiceUrl;
 
+  @Value("${colorfetch.batch.url:#{null}}")
+  private String colorFetchBatchUrl;
+
+  @Value("${colors.cache.size:" + DEFAULT_CACHE_SIZE + "}")
+  private int colorCacheSize;
+
+  @Value("${colors.worker.threads:" + DEFAULT_WORKER_THREADS + "}")
+  private int colorWorkerThreads;
+
+  @Value("${colors.worker.queue.size:" + DEFAULT_QUEUE_SIZE + "}")
+  private int colorQueueSize;
+
+  /**
+   * The deadline interrupts the job, so it only cuts short what reacts to interrupts: requests to the external
+   * color service (and any other blocking I/O) and the gaps between the images of a batch. The decoding of a
+   * single image by the internal provider is pure CPU work that runs to completion regardless.
+   */
+  @Value("${colors.job.timeout.ms:" + DEFAULT_JOB_TIMEOUT_MS + "}")
+  private long colorJobTimeoutMs;
+
+  @Value("${colors.failure.max.attempts:" + DEFAULT_FAILURE_MAX_ATTEMPTS + "}")
+  private int colorFailureMaxAttempts;
+
+  @Value("${colors.failure.backoff.minutes:" + DEFAULT_FAILURE_BACKOFF_MINUTES + "}")
+  private long colorFailureBackoffMinutes;
+
   private ColorProvider colorProvider;
+  private BoundedCache<String, ColorFetchResult> colorCache;
+  private BoundedCache<String, ColorFailure> colorFailures;
+  private ThreadPoolExecutor colorExecutor;
+  private final ScheduledExecutorService colorJobWatchdog;
+  private final VisualCacheStore visualCacheStore;
+  private final ApplicationEventPublisher eventPublisher;
+  private final SharedHttpClient sharedHttpClient;
+  private final Map<String, ColorJob> pendingColorJobs;
 
   private final Logger logger = Logger.getLogger(ColorProviderService.class.getName());
 
+  ColorProviderService(VisualCacheStore visualCacheStore, ApplicationEventPublisher eventPublisher, SharedHttpClient sharedHttpClient) {
+    this.visualCacheStore = visualCacheStore;
+    this.eventPublisher = eventPublisher;
+    this.sharedHttpClient = sharedHttpClient;
+    this.colorJobWatchdog = Executors.newSingleThreadScheduledExecutor();
+    this.pendingColorJobs = new ConcurrentHashMap<>();
+  }
+
   @PostConstruct
   void printColorLibraryState() {
     if (useExternalWebservice()) {
       logger.info("Using external color fetch service: " + colorFetchServiceUrl);
-      this.colorProvider = new ExternalColorProvider(colorFetchServiceUrl);
+      this.colorProvider = new ExternalColorProvider(colorFetchServiceUrl, colorFetchBatchUrl, sharedHttpClient);
     } else {
       logger.info("'colorfetch.url' not set in application.properties - using internal color fetch service");
       this.colorProvider = new InternalColorProvider();
     }
+    this.colorCache = new BoundedCache<>("Artwork color cache", colorCacheSize);
+    this.colorFailures = new BoundedCache<>("Artwork color failures", colorCacheSize);
+    this.colorExecutor = new ThreadPoolExecutor(colorWorkerThreads, colorWorkerThreads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(colorQueueSize));
+  }
+
+  @PreDestroy
+  void shutdownColorExecutor() {
+    colorExecutor.shutdownNow();
+    colorJobWatchdog.shutdownNow();
   }
 
-  public ColorFetchResult getDominantColorFromImageUrl(String artworkUrl, ImageData previousImageData) {
+  /**
+   * Get the dominant colors of the given image. This never blocks on the color extraction itself:
+   * if the colors aren't known yet, the extraction is queued on the color workers and FALLBACK is
+   * returned in the meantime. Once the colors are ready, an {@link ArtworkResolvedEvent} is published.
+   * Images whose extraction keeps failing (e.g. a dead URL) are only retried after a backoff.
+   *
+   * @param artworkUrl the image URL (preferably a small one, the colors don't need the full resolution)
+   * @return the colors, or FALLBACK if they aren't known (yet)
+   */
+  public ColorFetchResult getDominantColorFromImageUrl(String artworkUrl) {
     if (BigPictureConstants.BLANK.equals(artworkUrl)) {
       return ColorFetchResult.FALLBACK;
     }
 
-    boolean sameUrlAsInPrevious = Optional.ofNullable(previousImageData)
-      .map(ImageData::getImageUrl)
-      .map(artworkUrl::equals)
-      .orElse(false);
-    if (sameUrlAsInPrevious) {
-      return previousImageData.getImageColors();
+    ColorFetchResult knownColors = getKnownColors(artworkUrl);
+    if (knownColors != null) {
+      return knownColors;
+    }
+
+    if (!isBackingOff(artworkUrl)) {
+      requestColors(artworkUrl);
+    }
+    return ColorFetchResult.FALLBACK;
+  }
+
+  /**
+   * Queue the color extraction for multiple images at once, e.g. for the upcoming songs in the queue.
+   * All images whose colors aren't known yet are processed in a single job, so that the provider can
+   * handle them with one batch request (see {@link ColorProvider#getDominantColorsFromImageUrls}).
+   *
+   * @param artworkUrls the image URLs
+   */
+  public void prefetchColors(List<String> artworkUrls) {
+    List<String> batchUrls = new ArrayList<>();
+    List<String> batchJobKeys = new ArrayList<>();
+    // Prefetched colors aren't requested by anyone until their song actually plays, so the batch is given more time
+    ColorJob batchJob = new ColorJob(STALE_PREFETCH_JOB_MS);
+    for (String artworkUrl : artworkUrls) {
+      if (!BigPictureConstants.BLANK.equals(artworkUrl) && !batchUrls.contains(artworkUrl) && getKnownColors(artworkUrl) == null && !isBackingOff(artworkUrl)) {
+        String jobKey = colorProvider.getStrategy() + ":" + artworkUrl;
+        if (pendingColorJobs.putIfAbsent(jobKey, batchJob) == null) {
+          batchUrls.add(artworkUrl);
+          batchJobKeys.add(jobKey);
+        }
+      }
+    }
+    if (batchUrls.isEmpty()) {
+      return;
+    }
+    batchJob.task = new FutureTask<>(() -> runBatchColorJob(batchJobKeys, batchUrls, batchJob), null);
+    try {
+      colorExecutor.execute(batchJob.task);
+    } catch (RejectedExecutionException e) {
+      batchJobKeys.forEach(jobKey -> pendingColorJobs.remove(jobKey, batchJob));
+    }
+  }
+
+  /**
+   * Colors are cached by the image URL, so every track of an album shares the same result.
+   *
+   * @return the cached or persisted colors, null if they aren't known yet
+   */
+  private ColorFetchResult getKnownColors(String artworkUrl) {
+    ColorFetchResult cachedColors = colorCache.get(artworkUrl);
+    if (cachedColors != null) {
+      return cachedColors;
+    }
+
+    ColorFetchResult persistedColors = visualCacheStore.getColors(artworkUrl);
+    if (persistedColors != null) {
+      colorCache.put(artworkUrl, persistedColors);
+    }
+    return persistedColors;
+  }
+
+  /**
+   * Failed extractions are retried right away for the first few attempts (the service might just have
+   * been busy), after that only once the backoff has passed.
+   *
+   * @return true if the colors of this image failed too often recently to request them again yet
+   */
+  private boolean isBackingOff(String artworkUrl) {
+    ColorFailure colorFailure = colorFailures.get(artworkUrl);
+    return colorFailure != null && colorFailure.isBackingOff();
+  }
+
+  private void recordFailure(String artworkUrl) {
+    // There's only ever one job per image, so this doesn't need to be atomic
+    ColorFailure previousFailure = colorFailures.get(artworkUrl);
+    int attempts = previousFailure != null ? previousFailure.attempts + 1 : 1;
+    long retryAfter = attempts >= colorFailureMaxAttempts
+      ? System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(colorFailureBackoffMinutes)
+      : 0;
+    colorFailures.put(artworkUrl, new ColorFailure(attempts, retryAfter));
+  }
+
+  /**
+   * Queue the color extraction for the given image. Concurrent requests for the same image (e.g. multiple
+   * displays polling right after a song change) share a single job instead of each starting their own.
+   */
+  private void requestColors(String artworkUrl) {
+    String jobKey = colorProvider.getStrategy() + ":" + artworkUrl;
+    ColorJob pendingJob = pendingColorJobs.get(jobKey);
+    if (pendingJob != null) {
+      pendingJob.touch();
+      return;
+    }
+    ColorJob colorJob = new ColorJob(STALE_JOB_MS);
+    if (pendingColorJobs.putIfAbsent(jobKey, colorJob) != null) {
+      return;
+    }
+    colorJob.task = new FutureTask<>(() -> runColorJob(jobKey, artworkUrl, colorJob), null);
+    try {
+      colorExecutor.execute(colorJob.task);
+    } catch (RejectedExecutionException e) {
+      // The workers are saturated (e.g. a burst of song skips), the colors will be requested again with the next update
+      pendingColorJobs.remove(jobKey, colorJob);
+    }
+  }
+
+  private void runColorJob(String jobKey, String artworkUrl, ColorJob colorJob) {
+    try {
+      // Nobody asked for these colors since they were queued (e.g. the track was skipped), so don't waste any time on them
+      if (colorJob.isStale()) {
+        return;
+      }
+      ScheduledFuture<?> deadline = colorJobWatchdog.schedule(() -> colorJob.task.cancel(true), colorJobTimeoutMs, TimeUnit.MILLISECONDS);
+      ColorFetchResult colors = ColorFetchResult.FALLBACK;
+      try {
+        colors = fetchColors(artworkUrl);
+      } catch (Exception e) {
+        e.printStackTrace();
+      } finally {
+        deadline.cancel(false);
+      }
+      if (Thread.currentThread().isInterrupted()) {
+        // Cancelled by the watchdog, which says nothing about the image itself, so it's neither published nor counted as a failure
+        return;
+      }
+      if (colors == ColorFetchResult.FALLBACK) {
+        recordFailure(artworkUrl);
+      } else {
+        eventPublisher.publishEvent(new ArtworkResolvedEvent(this, ArtworkResolvedEvent.ArtworkType.COLORS, artworkUrl));
+      }
+    } finally {
+      pendingColorJobs.remove(jobKey, colorJob);
     }
+  }
 
-    return colorProvider.getDominantColorFromImageUrl(artworkUrl);
+  private void runBatchColorJob(List<String> jobKeys, List<String> artworkUrls, ColorJob batchJob) {
+    try {
+      // Same as for single jobs (with the longer prefetch TTL), and any request for one of the images keeps the whole batch alive
+      if (batchJob.isStale()) {
+        return;
+      }
+      ScheduledFuture<?> deadline = colorJobWatchdog.schedule(() -> batchJob.task.cancel(true), colorJobTimeoutMs, TimeUnit.MILLISECONDS);
+      List<String> resolvedUrls = new ArrayList<>();
+      try {
+        colorProvider.getDominantColorsFromImageUrls(artworkUrls, (artworkUrl, colors) -> {
+          // Results that trickle in after the watchdog cancelled the job are dropped
+          if (!Thread.currentThread().isInterrupted() && storeColors(artworkUrl, colors) != ColorFetchResult.FALLBACK) {
+            resolvedUrls.add(artworkUrl);
+          }
+        });
+      } catch (Exception e) {
+        e.printStackTrace();
+      } finally {
+        deadline.cancel(false);
+      }
+      if (Thread.currentThread().isInterrupted()) {
+        // Same as for single jobs: the images that weren't reached before the cancellation didn't fail
+        return;
+      }
+      for (String artworkUrl : artworkUrls) {
+        if (!resolvedUrls.contains(artworkUrl)) {
+          recordFailure(artworkUrl);
+        }
+      }
+      resolvedUrls.forEach(artworkUrl -> eventPublisher.publishEvent(new ArtworkResolvedEvent(this, ArtworkResolvedEvent.ArtworkType.COLORS, artworkUrl)));
+    } finally {
+      jobKeys.forEach(jobKey -> pendingColorJobs.remove(jobKey, batchJob));
+    }
+  }
+
+  private ColorFetchResult fetchColors(String artworkUrl) {
+    return storeColors(artworkUrl, colorProvider.getDominantColorFromImageUrl(artworkUrl));
+  }
+
+  private ColorFetchResult storeColors(String artworkUrl, ColorFetchResult colors) {
+    if (colors == null || colors == ColorFetchResult.FALLBACK) {
+      return ColorFetchResult.FALLBACK;
+    }
+    visualCacheStore.putColors(artworkUrl, colors);
+    // Cached before the pending job is removed, so there is no gap in which another request would queue it again
+    colorCache.put(artworkUrl, colors);
+    colorFailures.remove(artworkUrl);
+    return colors;
   }
 
   private boolean useExternalWebservice() {
     return colorFetchServiceUrl != null;
   }
+
+  private static class ColorFailure {
+    private final int attempts;
+    private final long retryAfter;
+
+    private ColorFailure(int attempts, long retryAfter) {
+      this.attempts = attempts;
+      this.retryAfter = retryAfter;
+    }
+
+    private boolean isBackingOff() {
+      return System.currentTimeMillis() < retryAfter;
+    }
+  }
+
+  private static class ColorJob {
+    private final long staleAfterMs;
+    private volatile long lastRequested;
+    private volatile FutureTask<Void> task;
+
+    private ColorJob(long staleAfterMs) {
+      this.staleAfterMs = staleAfterMs;
+      touch();
+    }
+
+    private void touch() {
+      this.lastRequested = System.currentTimeMillis();
+    }
+
+    private boolean isStale() {
+      return System.currentTimeMillis() - lastRequested > staleAfterMs;
+    }
+  }
 }
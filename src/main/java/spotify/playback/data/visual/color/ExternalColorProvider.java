@@ -1,22 +1,39 @@
 package spotify.playback.data.visual.color;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
 
-import org.jsoup.Jsoup;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import de.selbi.colorfetch.data.ColorFetchResult;
+import spotify.playback.data.help.SharedHttpClient;
 
 public class ExternalColorProvider implements ColorProvider {
   private final static String STRATEGY = "color_thief";
+  private final static String BATCH_CONTENT_TYPE = "application/json";
 
   private final String colorFetchServiceUrl;
+  private final String colorFetchBatchUrl;
+  private final SharedHttpClient sharedHttpClient;
   private final ObjectMapper objectMapper;
 
-  ExternalColorProvider(String colorFetchServiceUrl) {
+  ExternalColorProvider(String colorFetchServiceUrl, String colorFetchBatchUrl, SharedHttpClient sharedHttpClient) {
     this.colorFetchServiceUrl = colorFetchServiceUrl;
+    this.colorFetchBatchUrl = colorFetchBatchUrl;
+    this.sharedHttpClient = sharedHttpClient;
     this.objectMapper = new ObjectMapper();
   }
 
@@ -27,12 +44,65 @@ public class ExternalColorProvider implements ColorProvider {
           .queryParam("url", artworkUrl)
           .queryParam("strategy", STRATEGY)
           .queryParam("normalize", String.valueOf(NORMALIZE))
+          .encode()
           .build().toUriString();
-      String rawJson = Jsoup.connect(requestUri).ignoreContentType(true).execute().body();
+      String rawJson = sharedHttpClient.getString(requestUri, null);
       return objectMapper.readValue(rawJson, ColorFetchResult.class);
     } catch (IOException e) {
       e.printStackTrace();
       return ColorFetchResult.FALLBACK;
     }
   }
+
+  /**
+   * Get the colors of all images with a single request to the batch endpoint of the color fetch service
+   * (<code>colorfetch.batch.url</code>). The request body is a JSON object with the <code>urls</code>,
+   * <code>strategy</code> and <code>normalize</code> parameters, and the service responds with one JSON
+   * line per image (<code>{"url": ..., "colors": ...}</code>) as soon as it's done with it.<br/>
+   * Any image that isn't part of the response (or all of them, if the batch endpoint isn't configured
+   * or the request fails) is requested individually instead.
+   */
+  @Override
+  public void getDominantColorsFromImageUrls(List<String> artworkUrls, BiConsumer<String, ColorFetchResult> resultConsumer) {
+    Set<String> remainingUrls = new HashSet<>(artworkUrls);
+    if (colorFetchBatchUrl != null && artworkUrls.size() > 1) {
+      try (InputStream response = sharedHttpClient.postStream(colorFetchBatchUrl, BATCH_CONTENT_TYPE, createBatchRequestBody(artworkUrls));
+           BufferedReader reader = new BufferedReader(new InputStreamReader(response, StandardCharsets.UTF_8))) {
+        String line;
+        while (!Thread.currentThread().isInterrupted() && (line = reader.readLine()) != null) {
+          if (!line.isBlank()) {
+            JsonNode result = objectMapper.readTree(line);
+            String artworkUrl = result.path("url").asText(null);
+            if (artworkUrl != null && result.hasNonNull("colors") && remainingUrls.remove(artworkUrl)) {
+              resultConsumer.accept(artworkUrl, objectMapper.treeToValue(result.get("colors"), ColorFetchResult.class));
+            }
+          }
+        }
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+
+    // Fallback for anything the batch request didn't deliver, unless the whole job has been cancelled
+    if (Thread.currentThread().isInterrupted()) {
+      return;
+    }
+    List<String> missingUrls = new ArrayList<>(artworkUrls);
+    missingUrls.retainAll(remainingUrls);
+    ColorProvider.super.getDominantColorsFromImageUrls(missingUrls, resultConsumer);
+  }
+
+  private String createBatchRequestBody(List<String> artworkUrls) {
+    ObjectNode body = objectMapper.createObjectNode();
+    ArrayNode urls = body.putArray("urls");
+    artworkUrls.forEach(urls::add);
+    body.put("strategy", STRATEGY);
+    body.put("normalize", NORMALIZE);
+    return body.toString();
+  }
+
+  @Override
+  public String getStrategy() {
+    return STRATEGY;
+  }
 }
@@ -7,15 +7,26 @@ import de.selbi.colorfetch.provider.AndroidPaletteColorProvider;
 import de.selbi.colorfetch.provider.ColorThiefColorProvider;
 
 public class InternalColorProvider implements ColorProvider {
+  private static final ColorCacheKey.Strategy STRATEGY = ColorCacheKey.Strategy.COLOR_THIEF;
+
   private final ColorResultCache colorResultCache;
 
   InternalColorProvider() {
     this.colorResultCache = new ColorResultCache(new ColorThiefColorProvider(), new AndroidPaletteColorProvider());
   }
 
+  /**
+   * The decoding and quantization is done by the color fetch library and can't be interrupted,
+   * so a slow image keeps its worker busy even past the job deadline.
+   */
   @Override
   public ColorFetchResult getDominantColorFromImageUrl(String artworkUrl) {
-    ColorCacheKey colorCacheKey = ColorCacheKey.of(artworkUrl, ColorCacheKey.Strategy.COLOR_THIEF, NORMALIZE);
+    ColorCacheKey colorCacheKey = ColorCacheKey.of(artworkUrl, STRATEGY, NORMALIZE);
     return colorResultCache.getColor(colorCacheKey);
   }
+
+  @Override
+  public String getStrategy() {
+    return STRATEGY.name().toLowerCase();
+  }
 }
@@ -0,0 +1,232 @@
+package spotify.playback.stream;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import spotify.playback.data.PlaybackInfoDeltaProvider;
+import spotify.playback.data.PlaybackInfoProvider;
+import spotify.playback.data.dto.PlaybackInfo;
+import spotify.playback.data.dto.PlaybackInfoDelta;
+import spotify.playback.data.dto.PlaybackInfoResponse;
+import spotify.playback.data.dto.PlaybackProgress;
+import spotify.playback.data.events.PlaybackInfoRefreshedEvent;
+
+/**
+ * Pushes the shared playback info snapshot to all interfaces connected via Server-Sent Events or WebSocket.
+ * When the versionId changed, only the delta to the client's last version is sent (or the full playback info
+ * for newly connected clients), otherwise a small progress heartbeat is sent.<br/>
+ * The pushes run on their own workers, so a slow client never holds up the polling loop (or anyone else).
+ * Each client only ever has its newest snapshot waiting to be sent, older ones are dropped.
+ */
+@Service
+public class PlaybackInfoStreamService {
+  private static final String EVENT_PLAYBACK_INFO = "playback-info";
+  private static final String EVENT_PLAYBACK_DELTA = "playback-delta";
+  private static final String EVENT_PROGRESS = "progress";
+  private static final int FORCE_UPDATE_VERSION_ID = -1;
+  private static final int DEFAULT_PUSH_THREADS = 4;
+
+  @Value("${stream.push.threads:" + DEFAULT_PUSH_THREADS + "}")
+  private int pushThreads;
+
+  private final PlaybackInfoProvider playbackInfoProvider;
+  private final PlaybackInfoDeltaProvider playbackInfoDeltaProvider;
+  private final ObjectMapper objectMapper;
+  private final Map<StreamClient, ClientState> clients;
+  private ExecutorService pushExecutor;
+
+  private PlaybackInfo lastSerializedPlaybackInfo;
+  private String lastSerializedJson;
+
+  PlaybackInfoStreamService(PlaybackInfoProvider playbackInfoProvider, PlaybackInfoDeltaProvider playbackInfoDeltaProvider) {
+    this.playbackInfoProvider = playbackInfoProvider;
+    this.playbackInfoDeltaProvider = playbackInfoDeltaProvider;
+    this.objectMapper = new ObjectMapper();
+    this.clients = new ConcurrentHashMap<>();
+  }
+
+  @PostConstruct
+  void initPushExecutor() {
+    this.pushExecutor = Executors.newFixedThreadPool(pushThreads);
+  }
+
+  @PreDestroy
+  void shutdownPushExecutor() {
+    pushExecutor.shutdownNow();
+  }
+
+  /**
+   * Register a new interface streaming via Server-Sent Events. It immediately receives the current playback info.
+   *
+   * @return the emitter to be returned by the controller
+   */
+  public SseEmitter subscribe() {
+    SseEmitter emitter = new SseEmitter(0L);
+    SseStreamClient client = new SseStreamClient(emitter);
+    emitter.onCompletion(() -> unsubscribe(client));
+    emitter.onTimeout(() -> unsubscribe(client));
+    emitter.onError(e -> unsubscribe(client));
+    subscribe(client);
+    return emitter;
+  }
+
+  /**
+   * Register a new streaming interface. It immediately receives the current playback info.
+   *
+   * @param client the client
+   */
+  void subscribe(StreamClient client) {
+    clients.put(client, new ClientState());
+    playbackInfoProvider.registerClientActivity();
+    // A refresh already pushes the new snapshot to every client, this one included
+    if (!playbackInfoProvider.refreshPlaybackInfoIfOutdated()) {
+      schedulePush(client, playbackInfoProvider.getSnapshot());
+    }
+  }
+
+  void unsubscribe(StreamClient client) {
+    clients.remove(client);
+  }
+
+  @EventListener(PlaybackInfoRefreshedEvent.class)
+  public void onPlaybackInfoRefreshed() {
+    if (!clients.isEmpty()) {
+      // Connected streams count as active clients, so the polling loop keeps running for them
+      playbackInfoProvider.registerClientActivity();
+
+      // Settings to toggle are taken only once and then sent to every connected interface
+      PlaybackInfo settingsUpdate = playbackInfoProvider.takeSettingsToToggle();
+      PlaybackInfo playbackInfo = settingsUpdate != null ? settingsUpdate : playbackInfoProvider.getSnapshot();
+      clients.keySet().forEach(client -> schedulePush(client, playbackInfo));
+    }
+  }
+
+  /**
+   * Hand the given snapshot over to the push workers. If the client still has an update waiting, that one
+   * is simply replaced, so a slow client skips the versions it couldn't keep up with.
+   */
+  private void schedulePush(StreamClient client, PlaybackInfo playbackInfo) {
+    ClientState state = clients.get(client);
+    if (state == null) {
+      return;
+    }
+    boolean startDrain;
+    synchronized (state) {
+      state.offer(playbackInfo);
+      startDrain = !state.drainScheduled;
+      state.drainScheduled = true;
+    }
+    if (startDrain) {
+      try {
+        pushExecutor.execute(() -> drain(client, state));
+      } catch (RejectedExecutionException e) {
+        // Shutting down
+        unsubscribe(client);
+      }
+    }
+  }
+
+  /**
+   * Send everything that's waiting for the given client. Only one drain runs per client at a time,
+   * so the updates of a client are always sent in order.
+   */
+  private void drain(StreamClient client, ClientState state) {
+    while (true) {
+      PlaybackInfo playbackInfo;
+      List<String> settingsToToggle;
+      synchronized (state) {
+        if (state.pendingPlaybackInfo == null && state.pendingSettingsToToggle.isEmpty()) {
+          state.drainScheduled = false;
+          return;
+        }
+        playbackInfo = state.pendingPlaybackInfo != null ? state.pendingPlaybackInfo : playbackInfoProvider.getSnapshot();
+        settingsToToggle = List.copyOf(state.pendingSettingsToToggle);
+        state.pendingPlaybackInfo = null;
+        state.pendingSettingsToToggle.clear();
+      }
+      if (!settingsToToggle.isEmpty() && playbackInfo.hasPayload()) {
+        playbackInfo = playbackInfoProvider.copyWithSettingsToToggle(playbackInfo, settingsToToggle);
+      }
+      if (!clients.containsKey(client) || !pushUpdate(client, state, playbackInfo)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * @return false if the client has disconnected
+   */
+  private boolean pushUpdate(StreamClient client, ClientState state, PlaybackInfo playbackInfo) {
+    try {
+      boolean hasSettingsToToggle = !playbackInfo.getSettingsToToggle().isEmpty();
+      if (playbackInfo.hasPayload() && (playbackInfo.getVersionId() != state.lastVersionId || hasSettingsToToggle)) {
+        // Streams receive their updates strictly in order, so the last transmitted version is always a valid base
+        PlaybackInfoResponse response = playbackInfoDeltaProvider.toResponse(state.lastVersionId, playbackInfo);
+        if (response instanceof PlaybackInfoDelta) {
+          client.send(EVENT_PLAYBACK_DELTA, objectMapper.writeValueAsString(response));
+        } else {
+          client.send(EVENT_PLAYBACK_INFO, toJson(playbackInfo));
+        }
+        state.lastVersionId = playbackInfo.getVersionId();
+      } else {
+        PlaybackProgress progress = playbackInfoProvider.getCurrentProgress();
+        if (progress != null) {
+          client.send(EVENT_PROGRESS, objectMapper.writeValueAsString(progress));
+        }
+      }
+      return true;
+    } catch (IOException | IllegalStateException e) {
+      // Client has disconnected
+      unsubscribe(client);
+      return false;
+    }
+  }
+
+  /**
+   * The snapshot instance is shared between all interfaces, so it only needs to be serialized once per tick.
+   */
+  private synchronized String toJson(PlaybackInfo playbackInfo) throws JsonProcessingException {
+    if (playbackInfo != lastSerializedPlaybackInfo) {
+      lastSerializedJson = objectMapper.writeValueAsString(playbackInfo);
+      lastSerializedPlaybackInfo = playbackInfo;
+    }
+    return lastSerializedJson;
+  }
+
+  private static class ClientState {
+    // Guarded by the state itself
+    private PlaybackInfo pendingPlaybackInfo;
+    private final List<String> pendingSettingsToToggle = new ArrayList<>();
+    private int newestVersionId = FORCE_UPDATE_VERSION_ID;
+    private boolean drainScheduled;
+
+    // Only used by the drain, of which there is only ever one per client at a time
+    private int lastVersionId = FORCE_UPDATE_VERSION_ID;
+
+    private void offer(PlaybackInfo playbackInfo) {
+      pendingSettingsToToggle.addAll(playbackInfo.getSettingsToToggle());
+      // Refreshes can finish out of order, and a snapshot older than one already queued or sent is never pushed after it
+      if (playbackInfo.getVersionId() >= newestVersionId) {
+        newestVersionId = playbackInfo.getVersionId();
+        pendingPlaybackInfo = playbackInfo;
+      }
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package spotify.playback.stream;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class PlaybackWebSocketConfig implements WebSocketConfigurer {
+  private static final String SOCKET_PATH = "/playback-socket";
+
+  private final PlaybackWebSocketHandler playbackWebSocketHandler;
+
+  PlaybackWebSocketConfig(PlaybackWebSocketHandler playbackWebSocketHandler) {
+    this.playbackWebSocketHandler = playbackWebSocketHandler;
+  }
+
+  @Override
+  public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+    registry.addHandler(playbackWebSocketHandler, SOCKET_PATH).setAllowedOrigins("*");
+  }
+}
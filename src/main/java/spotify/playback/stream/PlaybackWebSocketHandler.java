@@ -0,0 +1,114 @@
+package spotify.playback.stream;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import spotify.playback.control.PlaybackControl;
+import spotify.playback.control.SettingsControl;
+import spotify.playback.data.PlaybackInfoProvider;
+
+/**
+ * Persistent channel for the interface: playback controls and setting toggles are received over the
+ * same connection that the resulting playback updates are pushed through, avoiding a new HTTP request
+ * and a full playback info rebuild for every button press.
+ * <p>
+ * Client messages are JSON objects with an "action" field:
+ * <ul>
+ *   <li>{"action": "subscribe"} - start receiving "playback-info" and "progress" events</li>
+ *   <li>{"action": "control", "control": "PLAY_PAUSE", "param": null, "requestId": "..."}</li>
+ *   <li>{"action": "toggle-setting", "settingId": "...", "requestId": "..."}</li>
+ * </ul>
+ * Commands are answered with a "control-result" or "setting" event carrying the same requestId.
+ */
+@Component
+public class PlaybackWebSocketHandler extends TextWebSocketHandler {
+  private static final String ACTION_SUBSCRIBE = "subscribe";
+  private static final String ACTION_CONTROL = "control";
+  private static final String ACTION_TOGGLE_SETTING = "toggle-setting";
+
+  private static final String EVENT_CONTROL_RESULT = "control-result";
+  private static final String EVENT_SETTING = "setting";
+  private static final String EVENT_ERROR = "error";
+
+  private final PlaybackControl playbackControl;
+  private final SettingsControl settingsControl;
+  private final PlaybackInfoProvider playbackInfoProvider;
+  private final PlaybackInfoStreamService playbackInfoStreamService;
+  private final ObjectMapper objectMapper;
+
+  private final Map<String, WebSocketStreamClient> clients;
+
+  private final Logger logger = Logger.getLogger(PlaybackWebSocketHandler.class.getName());
+
+  PlaybackWebSocketHandler(PlaybackControl playbackControl, SettingsControl settingsControl, PlaybackInfoProvider playbackInfoProvider, PlaybackInfoStreamService playbackInfoStreamService) {
+    this.playbackControl = playbackControl;
+    this.settingsControl = settingsControl;
+    this.playbackInfoProvider = playbackInfoProvider;
+    this.playbackInfoStreamService = playbackInfoStreamService;
+    this.objectMapper = new ObjectMapper();
+    this.clients = new ConcurrentHashMap<>();
+  }
+
+  @Override
+  public void afterConnectionEstablished(WebSocketSession session) {
+    clients.put(session.getId(), new WebSocketStreamClient(session));
+  }
+
+  @Override
+  public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+    WebSocketStreamClient client = clients.remove(session.getId());
+    if (client != null) {
+      playbackInfoStreamService.unsubscribe(client);
+    }
+  }
+
+  @Override
+  protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+    WebSocketStreamClient client = clients.get(session.getId());
+    if (client == null) {
+      return;
+    }
+    JsonNode json = objectMapper.readTree(message.getPayload());
+    String action = json.path("action").asText();
+    String requestId = json.hasNonNull("requestId") ? json.get("requestId").asText() : null;
+    try {
+      switch (action) {
+        case ACTION_SUBSCRIBE:
+          playbackInfoStreamService.subscribe(client);
+          break;
+        case ACTION_CONTROL:
+          String control = json.path("control").asText();
+          String param = json.hasNonNull("param") ? json.get("param").asText() : null;
+          boolean success = playbackControl.checkPlaybackControlsEnabled() && playbackControl.modifyPlaybackState(control, param);
+          if (success) {
+            // Pushes the updated snapshot to all subscribed interfaces, including this one
+            playbackInfoProvider.refreshPlaybackInfo();
+          }
+          client.send(EVENT_CONTROL_RESULT, requestId, String.valueOf(success));
+          break;
+        case ACTION_TOGGLE_SETTING:
+          String settingId = json.path("settingId").asText();
+          client.send(EVENT_SETTING, requestId, objectMapper.writeValueAsString(settingsControl.toggleSetting(settingId)));
+          break;
+        default:
+          logger.warning("Unknown WebSocket action: " + action);
+          client.send(EVENT_ERROR, requestId, null);
+      }
+    } catch (IllegalStateException | NoSuchElementException e) {
+      logger.warning(e.getMessage());
+      client.send(EVENT_ERROR, requestId, null);
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package spotify.playback.stream;
+
+import java.io.IOException;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+class SseStreamClient implements StreamClient {
+  private final SseEmitter emitter;
+
+  SseStreamClient(SseEmitter emitter) {
+    this.emitter = emitter;
+  }
+
+  SseEmitter getEmitter() {
+    return emitter;
+  }
+
+  @Override
+  public void send(String eventName, String json) throws IOException {
+    emitter.send(SseEmitter.event().name(eventName).data(json, MediaType.APPLICATION_JSON));
+  }
+}
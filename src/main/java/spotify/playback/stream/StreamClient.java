@@ -0,0 +1,18 @@
+package spotify.playback.stream;
+
+import java.io.IOException;
+
+/**
+ * An interface connected via a persistent channel (Server-Sent Events or WebSocket)
+ * that gets the playback info pushed to it.
+ */
+interface StreamClient {
+  /**
+   * Send a single event to this client.
+   *
+   * @param eventName the event name (e.g. "playback-info" or "progress")
+   * @param json the already serialized payload
+   * @throws IOException when the client has disconnected
+   */
+  void send(String eventName, String json) throws IOException;
+}
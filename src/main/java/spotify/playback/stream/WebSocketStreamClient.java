@@ -0,0 +1,46 @@
+package spotify.playback.stream;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+class WebSocketStreamClient implements StreamClient {
+  private static final int SEND_TIME_LIMIT_MS = 5 * 1000;
+  private static final int BUFFER_SIZE_LIMIT = 1024 * 1024;
+  private static final Pattern REQUEST_ID_INVALID_CHARACTERS = Pattern.compile("[^\\w-]");
+
+  private final WebSocketSession session;
+
+  WebSocketStreamClient(WebSocketSession session) {
+    // Raw sessions aren't thread-safe, but updates may be pushed from the polling loop and the socket handler at the same time
+    this.session = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, BUFFER_SIZE_LIMIT);
+  }
+
+  @Override
+  public void send(String eventName, String json) throws IOException {
+    send(eventName, null, json);
+  }
+
+  /**
+   * Send an event wrapped in an envelope of the form {"event": ..., "requestId": ..., "data": ...}.
+   *
+   * @param eventName the event name
+   * @param requestId the id of the client request this is a reply to (may be null)
+   * @param json the already serialized payload (may be null)
+   * @throws IOException when the client has disconnected
+   */
+  void send(String eventName, String requestId, String json) throws IOException {
+    StringBuilder envelope = new StringBuilder("{\"event\":\"").append(eventName).append('"');
+    if (requestId != null) {
+      envelope.append(",\"requestId\":\"").append(REQUEST_ID_INVALID_CHARACTERS.matcher(requestId).replaceAll("")).append('"');
+    }
+    if (json != null) {
+      envelope.append(",\"data\":").append(json);
+    }
+    envelope.append('}');
+    session.sendMessage(new TextMessage(envelope.toString()));
+  }
+}
@@ -12,14 +12,26 @@ function fireControl(control, param) {
   if (!waitingForResponse && isPrefEnabled("playback-control")) {
     waitingForResponse = true;
     setClass(document.body, "waiting-for-control", true);
-    fetch(`/modify-playback/${control}${param ? `?param=${param}` : ""}`, {method: 'POST'})
-      .then(response => {
-        if (response.status >= 200 && response.status < 300) {
-          response.json().then(response => processJson(response));
-        } else if (response.status >= 400) {
-          showModal("Playback Control", "ERROR: Failed to transmit control to backend!");
-        }
-      }).finally(() => unlockPlaybackControls());
+    if (isPlaybackSocketOpen()) {
+      // The resulting playback update is pushed through the same socket
+      sendPlaybackSocketRequest({action: "control", control: control, param: param})
+        .then(success => {
+          if (!success) {
+            showModal("Playback Control", "ERROR: Failed to transmit control to backend!");
+          }
+        })
+        .catch(() => showModal("Playback Control", "ERROR: Failed to transmit control to backend!"))
+        .finally(() => unlockPlaybackControls());
+    } else {
+      fetch(`/modify-playback/${control}${param ? `?param=${param}` : ""}`, {method: 'POST'})
+        .then(response => {
+          if (response.status >= 200 && response.status < 300) {
+            response.json().then(response => processJson(response));
+          } else if (response.status >= 400) {
+            showModal("Playback Control", "ERROR: Failed to transmit control to backend!");
+          }
+        }).finally(() => unlockPlaybackControls());
+    }
   }
 }
 
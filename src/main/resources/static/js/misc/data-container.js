@@ -32,6 +32,7 @@
  *    trackCount: number,
  *    combinedTime: number,
  *    listTracks: Array<any>,
+ *    listTracksOffset: number,
  *    queue: Array<any>,
  *    trackListView: string,
  *    nextImageData: {
@@ -100,6 +101,7 @@ const DATA_CONTAINER_BASE = {
     trackCount: 0,
     combinedTime: 0,
     listTracks: [],
+    listTracksOffset: 0,
     queue: [],
     trackListView: "",
     nextImageData: {
@@ -6,6 +6,27 @@ function cloneObject(object) {
   return JSON.parse(JSON.stringify(object));
 }
 
+/**
+ * Apply a JSON Merge Patch (RFC 7396) to the given target object.
+ * Note that the target object is modified in-place.
+ */
+function applyMergePatch(target, patch) {
+  if (patch === null || typeof patch !== "object" || Array.isArray(patch)) {
+    return patch;
+  }
+  if (target === null || typeof target !== "object" || Array.isArray(target)) {
+    target = {};
+  }
+  for (let key in patch) {
+    if (patch[key] === null) {
+      delete target[key];
+    } else {
+      target[key] = applyMergePatch(target[key], patch[key]);
+    }
+  }
+  return target;
+}
+
 function setClass(elem, className, state) {
   elem.classList.toggle(className, state);
   return elem;
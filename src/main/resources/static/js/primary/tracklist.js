@@ -9,6 +9,7 @@ function setCorrectTracklistView(changes, forceScroll = false) {
   let listTracks = getChange(changes, "trackData.listTracks").value;
   let currentId = getChange(changes, "currentlyPlaying.id").value;
   let trackNumber = getChange(changes, "trackData.trackNumber").value;
+  let listTracksOffset = getChange(changes, "trackData.listTracksOffset").value || 0;
   let currentDiscNumber = getChange(changes, "trackData.discNumber").value;
   let totalDiscCount = getChange(changes, "trackData.totalDiscCount").value;
   let shuffle = getChange(changes, "playbackContext.shuffle").value;
@@ -76,9 +77,11 @@ function setCorrectTracklistView(changes, forceScroll = false) {
   if (forceScroll || refreshPrintedList || getChange(changes, "trackData.trackNumber").wasChanged) {
     // Make sure the tracklist is at the correct position after the scaling transition.
     // This is a bit of a hackish solution, but a proper ontransitionend would be too tricky on a grid.
-    refreshScrollPositions(queueMode, trackNumber, totalDiscCount, currentDiscNumber);
+    // (Large playlists only contain a window of the tracklist, so the position is relative to that window)
+    let trackNumberInList = Math.max(0, trackNumber - listTracksOffset);
+    refreshScrollPositions(queueMode, trackNumberInList, totalDiscCount, currentDiscNumber);
     setTimeout(() => {
-      refreshScrollPositions(queueMode, trackNumber, totalDiscCount, currentDiscNumber);
+      refreshScrollPositions(queueMode, trackNumberInList, totalDiscCount, currentDiscNumber);
     }, getTransitionFromCss());
   }
 }
@@ -1,4 +1,6 @@
 const INFO_URL = "/playback-info";
+const INFO_STREAM_URL = "/playback-info/stream";
+const PLAYBACK_SOCKET_URL = "/playback-socket";
 
 window.addEventListener('load', entryPoint);
 function entryPoint() {
@@ -7,14 +9,15 @@ function entryPoint() {
 
 function singleRequest(forceUpdate) {
   return new Promise(resolve => {
-    let url = `${INFO_URL}?v=${forceUpdate ? -1 : currentData.versionId}`;
+    let canUseDelta = !forceUpdate && lastServerData?.versionId === currentData.versionId;
+    let url = `${INFO_URL}?v=${forceUpdate ? -1 : currentData.versionId}${canUseDelta ? "&delta=true" : ""}`;
     fetch(url)
       .then(response => response.json())
       .then(json => {
         if ('errorMessage' in json) {
           throw new Error(json.errorMessage);
         }
-        return processJson(json);
+        return processServerData(json);
       })
       .then(() => resolve(true))
       .catch(ex => {
@@ -30,6 +33,26 @@ function singleRequest(forceUpdate) {
   });
 }
 
+/**
+ * The last complete playback info as sent by the server (without any local modifications,
+ * such as simulated song transitions), which serves as the base for incoming deltas.
+ */
+let lastServerData;
+function processServerData(json) {
+  if (json.type === "DELTA") {
+    if (lastServerData?.versionId !== json.baseVersionId) {
+      // Out of sync, request the full data again
+      return singleRequest(true);
+    }
+    json = applyMergePatch(cloneObject(lastServerData), json.patch);
+  }
+  if (json.type === "DATA") {
+    lastServerData = cloneObject(json);
+    delete lastServerData.settingsToToggle;
+  }
+  return processJson(json);
+}
+
 const POLLING_INTERVAL_MS = 2 * 1000;
 const POLLING_INTERVAL_IDLE_MS = 60 * 1000;
 const MAX_POLLING_RETRY_ATTEMPT = 5;
@@ -37,13 +60,18 @@ let pollingRetryAttempt = 0;
 let pollTimeout;
 function startPollingLoop() {
   clearTimeout(pollTimeout);
-  pollingLoop();
+  if (!openPushChannel()) {
+    pollingLoop();
+  }
 }
 
 function pollingLoop() {
   singleRequest()
     .then(success => calculateNextPollingTimeout(success))
     .then(pollingMs => {
+      if (pollingMs === POLLING_INTERVAL_MS && openPushChannel()) {
+        return;
+      }
       let nextPollingMs = pollingMs;
       if (pollingMs > 0 && pollingMs !== POLLING_INTERVAL_MS && isPrefEnabled("guess-next-track")) {
         fakeSongTransition = setTimeout(() => simulateNextSongTransition(), pollingMs);
@@ -74,6 +102,156 @@ function calculateNextPollingTimeout(success) {
   return retryTimeoutMs;
 }
 
+///////////////
+
+/**
+ * Try to open a persistent channel for the playback updates (WebSocket first, Server-Sent Events second).
+ * Returns false if neither is available, in which case regular polling should be used.
+ */
+function openPushChannel() {
+  return openPlaybackSocket() || openPlaybackInfoStream();
+}
+
+function closePushChannels() {
+  closePlaybackSocket();
+  closePlaybackInfoStream();
+}
+
+function fallBackToPolling() {
+  clearTimeout(pollTimeout);
+  pollTimeout = setTimeout(pollingLoop, calculateNextPollingTimeout(false));
+}
+
+let playbackSocket;
+let playbackSocketErrors = 0;
+let playbackSocketRequestCounter = 0;
+const pendingPlaybackSocketRequests = {};
+function openPlaybackSocket() {
+  if (!window.WebSocket || playbackSocketErrors > MAX_POLLING_RETRY_ATTEMPT || idle || !isTabVisible()) {
+    return false;
+  }
+  if (!playbackSocket) {
+    let protocol = location.protocol === "https:" ? "wss:" : "ws:";
+    playbackSocket = new WebSocket(`${protocol}//${location.host}${PLAYBACK_SOCKET_URL}`);
+    playbackSocket.onopen = () => {
+      playbackSocketErrors = 0;
+      playbackSocket.send(JSON.stringify({action: "subscribe"}));
+    };
+    playbackSocket.onmessage = message => processPlaybackSocketMessage(JSON.parse(message.data));
+    playbackSocket.onclose = () => {
+      // Fall back to regular polling, which will try to reopen the socket once the connection is back
+      playbackSocketErrors++;
+      closePlaybackSocket();
+      fallBackToPolling();
+    };
+  }
+  return true;
+}
+
+function closePlaybackSocket() {
+  if (playbackSocket) {
+    playbackSocket.onclose = null;
+    playbackSocket.close();
+    playbackSocket = null;
+  }
+  for (let requestId in pendingPlaybackSocketRequests) {
+    pendingPlaybackSocketRequests[requestId].reject(new Error("Connection closed"));
+    delete pendingPlaybackSocketRequests[requestId];
+  }
+}
+
+function isPlaybackSocketOpen() {
+  return playbackSocket?.readyState === WebSocket.OPEN;
+}
+
+function sendPlaybackSocketRequest(request) {
+  return new Promise((resolve, reject) => {
+    let requestId = `request-${++playbackSocketRequestCounter}`;
+    pendingPlaybackSocketRequests[requestId] = {resolve, reject};
+    playbackSocket.send(JSON.stringify({...request, requestId}));
+  });
+}
+
+function processPlaybackSocketMessage(message) {
+  switch (message.event) {
+    case "playback-info":
+    case "playback-delta":
+      processServerData(message.data);
+      break;
+    case "progress":
+      processProgressHeartbeat(message.data);
+      break;
+    default:
+      let pendingRequest = pendingPlaybackSocketRequests[message.requestId];
+      if (pendingRequest) {
+        delete pendingPlaybackSocketRequests[message.requestId];
+        if (message.event === "error") {
+          pendingRequest.reject(new Error("Request failed"));
+        } else {
+          pendingRequest.resolve(message.data);
+        }
+      }
+  }
+}
+
+let playbackInfoStream;
+let playbackInfoStreamErrors = 0;
+function openPlaybackInfoStream() {
+  if (!window.EventSource || playbackInfoStreamErrors > MAX_POLLING_RETRY_ATTEMPT || idle || !isTabVisible()) {
+    return false;
+  }
+  if (!playbackInfoStream) {
+    playbackInfoStream = new EventSource(INFO_STREAM_URL);
+    playbackInfoStream.addEventListener("playback-info", event => {
+      playbackInfoStreamErrors = 0;
+      processServerData(JSON.parse(event.data));
+    });
+    playbackInfoStream.addEventListener("playback-delta", event => {
+      processServerData(JSON.parse(event.data));
+    });
+    playbackInfoStream.addEventListener("progress", event => {
+      processProgressHeartbeat(JSON.parse(event.data));
+    });
+    playbackInfoStream.onerror = () => {
+      // Fall back to regular polling, which will try to reopen the stream once the connection is back
+      playbackInfoStreamErrors++;
+      closePlaybackInfoStream();
+      fallBackToPolling();
+    };
+  }
+  return true;
+}
+
+function closePlaybackInfoStream() {
+  if (playbackInfoStream) {
+    playbackInfoStream.close();
+    playbackInfoStream = null;
+  }
+}
+
+function processProgressHeartbeat(progress) {
+  if (idle || !isTabVisible()) {
+    // Hidden or idle tabs don't need live updates, slow polling is enough until the tab is visible again
+    closePushChannels();
+    clearTimeout(pollTimeout);
+    pollTimeout = setTimeout(pollingLoop, POLLING_INTERVAL_IDLE_MS);
+    return;
+  }
+  if (progress.versionId === currentData.versionId && !currentData.playbackContext.paused) {
+    currentData.currentlyPlaying.timeCurrent = progress.timeCurrent;
+    startTime = Date.now();
+    updateProgress(currentData);
+
+    clearTimeout(fakeSongTransition);
+    let remainingTime = currentData.currentlyPlaying.timeTotal - currentData.currentlyPlaying.timeCurrent;
+    if (remainingTime < POLLING_INTERVAL_MS * 2 && isPrefEnabled("guess-next-track")) {
+      fakeSongTransition = setTimeout(() => simulateNextSongTransition(), remainingTime);
+    }
+  }
+}
+
+///////////////
+
 let fakeSongTransitionCooldown = false;
 let fakeSongTransition;
 function simulateNextSongTransition(force = false) {
@@ -96,7 +274,8 @@ function simulateNextSongTransition(force = false) {
     expectedSong.timeCurrent = 0;
     expectedSong.imageData = newTrackData.nextImageData;
 
-    newTrackData.trackNumber = newTrackData.listTracks.findIndex(track => track.id === expectedSong.id) + 1;
+    let expectedSongIndex = newTrackData.listTracks.findIndex(track => track.id === expectedSong.id);
+    newTrackData.trackNumber = expectedSongIndex >= 0 ? (newTrackData.listTracksOffset || 0) + expectedSongIndex + 1 : 0;
     newTrackData.discNumber = expectedSong.discNumber;
     delete newTrackData.nextImageData;
 
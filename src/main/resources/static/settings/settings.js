@@ -95,6 +95,53 @@
       }
     });
 
+  let settingsSocket;
+  let settingsSocketRequestCounter = 0;
+  const pendingSettingsSocketRequests = {};
+  if (window.WebSocket) {
+    let protocol = location.protocol === "https:" ? "wss:" : "ws:";
+    settingsSocket = new WebSocket(`${protocol}//${location.host}/playback-socket`);
+    settingsSocket.onmessage = message => {
+      let json = JSON.parse(message.data);
+      let pendingRequest = pendingSettingsSocketRequests[json.requestId];
+      if (pendingRequest) {
+        delete pendingSettingsSocketRequests[json.requestId];
+        if (json.event === "error") {
+          pendingRequest.reject("Failed to transmit setting to backend");
+        } else {
+          pendingRequest.resolve(json.data);
+        }
+      }
+    };
+  }
+
+  function transmitSetting(settingId) {
+    if (settingsSocket?.readyState === WebSocket.OPEN) {
+      return new Promise((resolve, reject) => {
+        let requestId = `request-${++settingsSocketRequestCounter}`;
+        pendingSettingsSocketRequests[requestId] = {resolve, reject};
+        settingsSocket.send(JSON.stringify({action: "toggle-setting", settingId: settingId, requestId: requestId}));
+      });
+    }
+    return fetch("/settings/toggle/" + settingId, {
+      method: 'POST',
+      headers: {
+        'Content-Type': 'application/json',
+      },
+      body: settingId
+    })
+    .then(response => {
+      if (response.status >= 200 && response.status < 300) {
+        if (!settingId.startsWith("preset-") && settingId !== "reload") {
+          return response.json();
+        }
+        return null;
+      } else if (response.status >= 400) {
+        throw "Failed to transmit setting to backend";
+      }
+    });
+  }
+
   function toggleSetting(settingElement, settingId) {
     if (!settingElement.classList.contains("loading")) {
       settingElement.classList.add("loading");
@@ -108,23 +155,7 @@
         }
       }
 
-      fetch("/settings/toggle/" + settingId, {
-        method: 'POST',
-        headers: {
-          'Content-Type': 'application/json',
-        },
-        body: settingId
-      })
-      .then(response => {
-        if (response.status >= 200 && response.status < 300) {
-          if (!settingId.startsWith("preset-") && settingId !== "reload") {
-            return response.json();
-          }
-          return null;
-        } else if (response.status >= 400) {
-          throw "Failed to transmit setting to backend";
-        }
-      })
+      transmitSetting(settingId)
       .then(json => {
         if (json) {
           if (json.state) {
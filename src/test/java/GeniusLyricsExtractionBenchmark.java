@@ -0,0 +1,63 @@
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import org.jsoup.Jsoup;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import spotify.playback.data.help.SharedHttpClient;
+import spotify.playback.data.lyrics.GeniusLyricsExtractor;
+import spotify.playback.data.lyrics.GeniusLyricsScraper;
+
+/**
+ * Compares the time and memory it takes to extract the lyrics from a Genius page with the full
+ * document parser and with the streaming parser. This downloads a real page and parses it many
+ * times, so it's not part of the regular test run. Remove the {@link Ignore} to run it manually.
+ */
+@Ignore("Opt-in benchmark, requires network access")
+public class GeniusLyricsExtractionBenchmark {
+  private static final String LYRICS_PAGE_URL = "https://genius.com/Rick-astley-never-gonna-give-you-up-lyrics";
+  private static final int WARMUP_RUNS = 5;
+  private static final int EXTRACTION_RUNS = 20;
+
+  private final Logger logger = Logger.getLogger(GeniusLyricsExtractionBenchmark.class.getName());
+
+  @Test
+  public void benchmarkLyricsExtraction() throws IOException {
+    SharedHttpClient sharedHttpClient = new SharedHttpClient(1, 5 * 1000, 10 * 1000);
+    String html = sharedHttpClient.getString(LYRICS_PAGE_URL, GeniusLyricsScraper.USER_AGENT);
+
+    String documentLyrics = measureExtraction("Document", () -> GeniusLyricsExtractor.extractLyrics(Jsoup.parse(html, LYRICS_PAGE_URL)));
+    String streamedLyrics = measureExtraction("Streaming", () -> {
+      try {
+        return GeniusLyricsExtractor.extractLyrics(new StreamParser(Parser.htmlParser()).parse(html, LYRICS_PAGE_URL));
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    assertEquals(documentLyrics, streamedLyrics);
+  }
+
+  private String measureExtraction(String name, Supplier<String> extraction) {
+    com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    String lyrics = null;
+    for (int i = 0; i < WARMUP_RUNS; i++) {
+      lyrics = extraction.get();
+    }
+    long allocatedBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+    long start = System.nanoTime();
+    for (int i = 0; i < EXTRACTION_RUNS; i++) {
+      extraction.get();
+    }
+    long avgMicros = (System.nanoTime() - start) / EXTRACTION_RUNS / 1000;
+    long avgAllocatedKb = (threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBefore) / EXTRACTION_RUNS / 1024;
+    logger.info(String.format("%s extraction: %d us, %d KB allocated per page", name, avgMicros, avgAllocatedKb));
+    return lyrics;
+  }
+}
@@ -0,0 +1,117 @@
+import static org.junit.Assert.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import spotify.playback.data.lyrics.GeniusSearchMatcher;
+
+/**
+ * Compares the time and memory it takes to find the matching hit of a Genius search with the original
+ * regex based matching (rebuilt below, as it was before the {@link GeniusSearchMatcher}) and with the
+ * matcher. Both run over the same recorded search response, so no network access is needed, but it
+ * takes a while and only logs its results. Remove the {@link Ignore} to run it manually.
+ */
+@Ignore("Opt-in benchmark")
+public class GeniusSearchMatcherBenchmark {
+  private static final String ARTIST_NAME = "Rick Astley";
+  private static final String SONG_NAME = "Never Gonna Give You Up (Remastered 2022)";
+  private static final String SEARCH_RESPONSE = "{\"response\":{\"hits\":["
+    + hit("Rick Astley", "Together Forever", "/Rick-astley-together-forever-lyrics")
+    + "," + hit("Rick Astley", "Whenever You Need Somebody", "/Rick-astley-whenever-you-need-somebody-lyrics")
+    + "," + hit("Rickroll", "Never Gonna Give You Up (Rickroll Version)", "/Rickroll-never-gonna-give-you-up-rickroll-version-lyrics")
+    + "," + hit("Genius Romanizations", "Rick Astley - Never Gonna Give You Up (Romanized)", "/Genius-romanizations-rick-astley-never-gonna-give-you-up-romanized-lyrics")
+    + "," + hit("Rick Astley", "Cry for Help", "/Rick-astley-cry-for-help-lyrics")
+    + "," + hit("Rick Astley", "Never Gonna Give You Up (Pianoforte)", "/Rick-astley-never-gonna-give-you-up-pianoforte-lyrics")
+    + "," + hit("Rick Astley", "She Wants to Dance with Me", "/Rick-astley-she-wants-to-dance-with-me-lyrics")
+    + "," + hit("Rick Astley", "Take Me to Your Heart", "/Rick-astley-take-me-to-your-heart-lyrics")
+    + "," + hit("Rick Astley", "It Would Take a Strong Strong Man", "/Rick-astley-it-would-take-a-strong-strong-man-lyrics")
+    + "," + hit("Rick Astley", "Never Gonna Give You Up", "/Rick-astley-never-gonna-give-you-up-lyrics")
+    + "]}}";
+  private static final int WARMUP_RUNS = 10_000;
+  private static final int MATCHING_RUNS = 100_000;
+
+  private final Logger logger = Logger.getLogger(GeniusSearchMatcherBenchmark.class.getName());
+
+  private static String hit(String artistNames, String title, String path) {
+    return "{\"result\":{\"artist_names\":\"" + artistNames + "\",\"title\":\"" + title + "\",\"path\":\"" + path + "\"}}";
+  }
+
+  @Test
+  public void benchmarkSearchMatching() {
+    JsonArray hits = new Gson().fromJson(SEARCH_RESPONSE, JsonObject.class).getAsJsonObject("response").getAsJsonArray("hits");
+
+    String regexPath = measureMatching("Regex", () -> findMatchingPathWithRegex(hits, preprocessWithRegex(ARTIST_NAME), preprocessWithRegex(SONG_NAME)));
+    String matcherPath = measureMatching("Matcher", () -> new GeniusSearchMatcher(ARTIST_NAME, SONG_NAME).findBestPath(hits));
+
+    // The regex matching takes the first hit that roughly fits, the matcher the exact title
+    assertEquals("/Rick-astley-never-gonna-give-you-up-pianoforte-lyrics", regexPath);
+    assertEquals("/Rick-astley-never-gonna-give-you-up-lyrics", matcherPath);
+  }
+
+  private String measureMatching(String name, Supplier<String> matching) {
+    com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    String path = null;
+    for (int i = 0; i < WARMUP_RUNS; i++) {
+      path = matching.get();
+    }
+    long allocatedBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+    long start = System.nanoTime();
+    for (int i = 0; i < MATCHING_RUNS; i++) {
+      matching.get();
+    }
+    long avgNanos = (System.nanoTime() - start) / MATCHING_RUNS;
+    long avgAllocatedBytes = (threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBefore) / MATCHING_RUNS;
+    logger.info(String.format("%s matching: %d ns, %d bytes allocated per search", name, avgNanos, avgAllocatedBytes));
+    return path;
+  }
+
+  ///////////////////////////////
+  // The original matching, with the patterns compiled on every call
+
+  private static String preprocessWithRegex(String input) {
+    input = input.replaceAll("[#@_]", "");
+    String outsideBrackets = input.replaceAll("\\(.*?\\)", "").trim();
+    if (outsideBrackets.isEmpty() || outsideBrackets.matches("[^\\p{L}\\p{N}]+")) {
+      java.util.regex.Matcher matcher = java.util.regex.Pattern.compile("\\((.*?)\\)").matcher(input);
+      if (matcher.find()) {
+        return matcher.group(1).trim();
+      }
+    }
+    input = input.replaceAll("\\(.*?\\)", "").trim();
+    if (input.contains("(") && !input.contains(")")) {
+      input = input.substring(0, input.indexOf('(')).trim();
+    }
+    return input;
+  }
+
+  private static String findMatchingPathWithRegex(JsonArray hits, String artistName, String songName) {
+    String normalizedArtistName = normalizeWithRegex(artistName);
+    String normalizedSongName = normalizeWithRegex(songName);
+    String[] artistNameParts = normalizedArtistName.split("\\s+");
+    for (JsonElement hit : hits) {
+      JsonObject result = hit.getAsJsonObject().getAsJsonObject("result");
+      String normalizedArtistNames = normalizeWithRegex(result.get("artist_names").getAsString());
+      String normalizedTitle = normalizeWithRegex(result.get("title").getAsString());
+      boolean artistMatch = Arrays.stream(artistNameParts).allMatch(normalizedArtistNames::contains);
+      boolean titleMatch = normalizedTitle.contains(normalizedSongName);
+      if (artistMatch && titleMatch) {
+        return result.get("path").getAsString();
+      }
+    }
+    return null;
+  }
+
+  private static String normalizeWithRegex(String input) {
+    return input.toLowerCase().replaceAll("[^a-zA-Z0-9\\s]", "").trim();
+  }
+}
@@ -0,0 +1,113 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import spotify.playback.data.lyrics.GeniusSearchMatcher;
+
+public class GeniusSearchMatcherTest {
+
+  private JsonArray hits(String... artistTitlePathTriples) {
+    JsonArray hits = new JsonArray();
+    for (int i = 0; i < artistTitlePathTriples.length; i += 3) {
+      JsonObject result = new JsonObject();
+      result.addProperty("artist_names", artistTitlePathTriples[i]);
+      result.addProperty("title", artistTitlePathTriples[i + 1]);
+      result.addProperty("path", artistTitlePathTriples[i + 2]);
+      JsonObject hit = new JsonObject();
+      hit.add("result", result);
+      hits.add(hit);
+    }
+    return hits;
+  }
+
+  ///////////////////////////////
+
+  @Test
+  public void testSearchTermsArePreprocessed() {
+    GeniusSearchMatcher matcher = new GeniusSearchMatcher("#Artist_", "Song (Remastered 2011)");
+    assertEquals("Artist", matcher.getArtistName());
+    assertEquals("Song", matcher.getSongName());
+    assertEquals("artist\nsong", matcher.getCacheKey());
+
+    GeniusSearchMatcher bracketsOnly = new GeniusSearchMatcher("Artist", "(Untitled)");
+    assertEquals("Untitled", bracketsOnly.getSongName());
+  }
+
+  @Test
+  public void testNonLatinNamesGetDistinctCacheKeys() {
+    GeniusSearchMatcher first = new GeniusSearchMatcher("\u7c73\u6d25\u7384\u5e2b", "\u30ec\u30e2\u30f3");
+    GeniusSearchMatcher second = new GeniusSearchMatcher("\u7c73\u6d25\u7384\u5e2b", "\u611f\u96fb");
+    GeniusSearchMatcher cyrillic = new GeniusSearchMatcher("\u041a\u0418\u041d\u041e", "\u0413\u0440\u0443\u043f\u043f\u0430 \u043a\u0440\u043e\u0432\u0438");
+    assertNotEquals(first.getCacheKey(), second.getCacheKey());
+    assertNotEquals(first.getCacheKey(), cyrillic.getCacheKey());
+    assertEquals(cyrillic.getCacheKey(), new GeniusSearchMatcher("\u043a\u0438\u043d\u043e", "\u0433\u0440\u0443\u043f\u043f\u0430  \u041a\u0440\u043e\u0432\u0438").getCacheKey());
+  }
+
+  @Test
+  public void testExactTitleIsPreferredOverPartialMatch() {
+    GeniusSearchMatcher matcher = new GeniusSearchMatcher("The Artist", "Song");
+    String path = matcher.findBestPath(hits(
+      "The Artist", "Song (Live)", "/live",
+      "The Artist", "Song", "/studio"));
+    assertEquals("/studio", path);
+  }
+
+  @Test
+  public void testEarlierHitWinsOnTie() {
+    GeniusSearchMatcher matcher = new GeniusSearchMatcher("Artist", "Song");
+    String path = matcher.findBestPath(hits(
+      "Artist", "Song (Remix)", "/first",
+      "Artist", "Song (Acoustic)", "/second"));
+    assertEquals("/first", path);
+  }
+
+  @Test
+  public void testUnrelatedHitsDontMatch() {
+    GeniusSearchMatcher matcher = new GeniusSearchMatcher("Artist", "Song");
+    assertNull(matcher.findBestPath(hits(
+      "Someone Else", "Another Song", "/other",
+      "Artist", "Something Different", "/different")));
+  }
+
+  @Test
+  public void testPartialArtistDoesntMatchDespiteExactTitle() {
+    GeniusSearchMatcher matcher = new GeniusSearchMatcher("Black Sabbath", "Paranoid");
+    assertNull(matcher.findBestPath(hits(
+      "Black Eyed Peas", "Paranoid", "/other-artist")));
+  }
+
+  @Test
+  public void testIncompleteTitleDoesntMatch() {
+    GeniusSearchMatcher matcher = new GeniusSearchMatcher("Artist", "One Two Three Four");
+    assertNull(matcher.findBestPath(hits(
+      "Artist", "One Two Three", "/incomplete")));
+  }
+
+  @Test
+  public void testNonLatinNamesAreMatched() {
+    GeniusSearchMatcher matcher = new GeniusSearchMatcher("\u7c73\u6d25\u7384\u5e2b", "\u30ec\u30e2\u30f3");
+    String path = matcher.findBestPath(hits(
+      "\u7c73\u6d25\u7384\u5e2b", "\u611f\u96fb", "/other-song",
+      "\u7c73\u6d25\u7384\u5e2b", "\u30ec\u30e2\u30f3", "/lemon"));
+    assertEquals("/lemon", path);
+  }
+
+  @Test
+  public void testNonLatinHitOfDifferentArtistDoesntMatch() {
+    GeniusSearchMatcher matcher = new GeniusSearchMatcher("\u7c73\u6d25\u7384\u5e2b", "\u30ec\u30e2\u30f3");
+    assertNull(matcher.findBestPath(hits(
+      "\u041a\u0418\u041d\u041e", "\u0413\u0440\u0443\u043f\u043f\u0430 \u043a\u0440\u043e\u0432\u0438", "/other-artist")));
+  }
+
+  @Test
+  public void testSymbolOnlyNamesDontMatchAnything() {
+    GeniusSearchMatcher matcher = new GeniusSearchMatcher("!!!", "???");
+    assertNull(matcher.findBestPath(hits(
+      "Someone Else", "!!!", "/symbols")));
+  }
+}
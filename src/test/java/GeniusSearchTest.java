@@ -1,7 +1,13 @@
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.fail;
 
+import java.io.IOException;
+
+import org.jsoup.Jsoup;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -17,6 +23,8 @@ import spotify.api.SpotifyApiManager;
 import spotify.api.SpotifyCall;
 import spotify.api.events.SpotifyApiException;
 import spotify.config.SpotifyApiConfig;
+import spotify.playback.data.help.SharedHttpClient;
+import spotify.playback.data.lyrics.GeniusLyricsExtractor;
 import spotify.playback.data.lyrics.GeniusLyricsScraper;
 import spotify.services.PlaylistService;
 import spotify.services.UserService;
@@ -35,6 +43,7 @@ import spotify.util.SpotifyUtils;
   PlaylistService.class,
   UserService.class,
   GeniusLyricsScraper.class,
+  SharedHttpClient.class,
   SpotifyBigPicture.SpotifyBigPictureSettings.class
 })
 @EnableConfigurationProperties
@@ -49,6 +58,9 @@ public class GeniusSearchTest {
   @Autowired
   private GeniusLyricsScraper geniusLyricsScraper;
 
+  @Autowired
+  private SharedHttpClient sharedHttpClient;
+
   private static boolean initialized = false;
 
   @Before
@@ -103,5 +115,18 @@ public class GeniusSearchTest {
     testLyricsSearch("5gEEcgxnyagVvAZlQ43dfn", false);
   }
 
-}
+  ///////////////////////////////
+
+  private static final String LYRICS_PAGE_URL = "https://genius.com/Rick-astley-never-gonna-give-you-up-lyrics";
 
+  @Test
+  public void testStreamingLyricsExtraction() throws IOException {
+    String html = sharedHttpClient.getString(LYRICS_PAGE_URL, GeniusLyricsScraper.USER_AGENT);
+
+    String documentLyrics = GeniusLyricsExtractor.extractLyrics(Jsoup.parse(html, LYRICS_PAGE_URL));
+    String streamedLyrics = GeniusLyricsExtractor.extractLyrics(new StreamParser(Parser.htmlParser()).parse(html, LYRICS_PAGE_URL));
+    assertFalse("Lyrics couldn't be found", documentLyrics.isEmpty());
+    assertEquals("Streamed lyrics differ from the fully parsed ones", documentLyrics, streamedLyrics);
+  }
+
+}
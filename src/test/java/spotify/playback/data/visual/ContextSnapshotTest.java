@@ -0,0 +1,64 @@
+package spotify.playback.data.visual;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import se.michaelthelin.spotify.enums.ModelObjectType;
+import spotify.playback.data.dto.sub.PlaybackContext;
+import spotify.playback.data.dto.sub.TrackElement;
+import spotify.playback.data.help.BigPictureConstants;
+
+public class ContextSnapshotTest {
+  private static final int TRACK_COUNT = 5;
+  private static final int TRACK_DURATION_MS = 180 * 1000;
+
+  private List<TrackElement> tracks(int from, int to) {
+    List<TrackElement> tracks = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      tracks.add(new TrackElement("track" + i, i + 1, 1, List.of("Artist"), "Song " + i, "Album", "2024", "", TRACK_DURATION_MS));
+    }
+    return tracks;
+  }
+
+  private ContextData firstPage() {
+    return new ContextData(PlaybackContext.Context.of("Playlist", PlaybackContext.Context.ContextType.PLAYLIST),
+      tracks(0, 2), TRACK_COUNT, BigPictureConstants.BLANK, "snapshot", 0);
+  }
+
+  ///////////////////////////////
+
+  @Test
+  public void testPartialPlaylistHasTracklistAndTime() {
+    ContextData firstPage = firstPage();
+    ContextSnapshot snapshot = ContextSnapshot.EMPTY.withContext("playlist", ModelObjectType.PLAYLIST, firstPage);
+    assertFalse(firstPage.isComplete());
+    assertEquals(2, snapshot.getListTracks().size());
+    assertEquals(Long.valueOf(2L * TRACK_DURATION_MS), snapshot.getTotalTime());
+    assertEquals(Integer.valueOf(TRACK_COUNT), snapshot.getTrackCount());
+  }
+
+  @Test
+  public void testPublishedPagesGraduallyFillTheTracklist() {
+    ContextData firstPage = firstPage();
+    ContextSnapshot snapshot = ContextSnapshot.EMPTY.withContext("playlist", ModelObjectType.PLAYLIST, firstPage);
+
+    List<TrackElement> loadedTracks = tracks(0, 4);
+    ContextData secondPage = firstPage.withListTracks(loadedTracks);
+    snapshot = snapshot.withData(secondPage);
+    assertFalse(secondPage.isComplete());
+    assertEquals(loadedTracks, snapshot.getListTracks());
+    assertEquals(Long.valueOf(4L * TRACK_DURATION_MS), snapshot.getTotalTime());
+
+    ContextData completeData = firstPage.withListTracks(tracks(0, TRACK_COUNT));
+    snapshot = snapshot.withData(completeData);
+    assertTrue(completeData.isComplete());
+    assertEquals(TRACK_COUNT, snapshot.getListTracks().size());
+    assertEquals(Long.valueOf((long) TRACK_COUNT * TRACK_DURATION_MS), snapshot.getTotalTime());
+  }
+}
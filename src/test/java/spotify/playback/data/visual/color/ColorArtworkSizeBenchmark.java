@@ -0,0 +1,130 @@
+package spotify.playback.data.visual.color;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.selbi.colorfetch.data.ColorFetchResult;
+import se.michaelthelin.spotify.SpotifyApi;
+import se.michaelthelin.spotify.model_objects.specification.Track;
+import spotify.SpotifyBigPicture;
+import spotify.api.SpotifyApiManager;
+import spotify.api.SpotifyCall;
+import spotify.api.events.SpotifyApiException;
+import spotify.config.SpotifyApiConfig;
+import spotify.services.PlaylistService;
+import spotify.services.UserService;
+import spotify.spring.SpringPortConfig;
+import spotify.util.SpotifyLogger;
+import spotify.util.SpotifyOptimizedExecutorService;
+import spotify.util.SpotifyUtils;
+
+/**
+ * Checks that extracting the colors from the smallest album image (as done by
+ * {@link spotify.playback.data.visual.artwork.ArtworkUrlCache#getColorArtworkUrl}) gives the same colors as
+ * the full-sized one, and compares the time and memory spent on both. The measurements include the download
+ * of the image, as that's part of every extraction the color workers do. This needs a Spotify login and
+ * network access, so it's not part of the regular test run. Remove the {@link Ignore} to run it manually.
+ */
+@Ignore("Opt-in benchmark, requires a Spotify login and network access")
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {
+  SpotifyApiConfig.class,
+  SpotifyApiManager.class,
+  SpringPortConfig.class,
+  SpotifyLogger.class,
+  SpotifyOptimizedExecutorService.class,
+  PlaylistService.class,
+  UserService.class,
+  SpotifyBigPicture.SpotifyBigPictureSettings.class
+})
+@EnableConfigurationProperties
+public class ColorArtworkSizeBenchmark {
+  private static final List<String> TRACK_IDS = List.of(
+    "4zdQmfTLWgGd5mAX4MUIaX",
+    "5Hijdt7rmbj9fUJdXEs6Nz",
+    "4E23uX1BDdUTk9x56nEbla",
+    "6q6hG6t5CWF501VRpBT1gC");
+  private static final int EXTRACTION_RUNS = 5;
+  private static final double MAX_COLOR_DISTANCE = 48.0;
+  private static final double MAX_BRIGHTNESS_DIFFERENCE = 0.1;
+
+  private final Logger logger = Logger.getLogger(ColorArtworkSizeBenchmark.class.getName());
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Autowired
+  private SpotifyApiManager spotifyApiManager;
+
+  @Autowired
+  private SpotifyApi spotifyApi;
+
+  @Test
+  public void benchmarkColorExtractionBySize() {
+    try {
+      spotifyApiManager.initialLogin();
+    } catch (SpotifyApiException e) {
+      fail("Couldn't log in to Spotify Web API!");
+    }
+
+    for (String trackId : TRACK_IDS) {
+      Track track = SpotifyCall.execute(spotifyApi.getTrack(trackId));
+      assertNotNull("Track couldn't be found " + trackId, track);
+      String largeImageUrl = SpotifyUtils.findLargestImage(track.getAlbum().getImages());
+      String smallImageUrl = SpotifyUtils.findSmallestImage(track.getAlbum().getImages());
+
+      ColorFetchResult largeImageColors = measureExtraction(track.getAlbum().getName() + " (large)", largeImageUrl);
+      ColorFetchResult smallImageColors = measureExtraction(track.getAlbum().getName() + " (small)", smallImageUrl);
+      assertEquivalentColors(track.getAlbum().getName(), largeImageColors, smallImageColors);
+    }
+  }
+
+  /**
+   * Every run uses a new provider, as the provider caches its results by the image URL.
+   */
+  private ColorFetchResult measureExtraction(String name, String imageUrl) {
+    com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    ColorFetchResult colors = new InternalColorProvider().getDominantColorFromImageUrl(imageUrl); // warm-up
+    long allocatedBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+    long start = System.nanoTime();
+    for (int i = 0; i < EXTRACTION_RUNS; i++) {
+      new InternalColorProvider().getDominantColorFromImageUrl(imageUrl);
+    }
+    long avgMillis = (System.nanoTime() - start) / EXTRACTION_RUNS / 1000 / 1000;
+    long avgAllocatedKb = (threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBefore) / EXTRACTION_RUNS / 1024;
+    logger.info(String.format("%s extraction: %d ms, %d KB allocated per image", name, avgMillis, avgAllocatedKb));
+    return colors;
+  }
+
+  private void assertEquivalentColors(String name, ColorFetchResult expected, ColorFetchResult actual) {
+    JsonNode expectedColors = objectMapper.valueToTree(expected);
+    JsonNode actualColors = objectMapper.valueToTree(actual);
+    for (String color : List.of("primary", "secondary")) {
+      double distance = colorDistance(expectedColors.get(color), actualColors.get(color));
+      assertTrue(String.format("%s: %s color differs by %.1f", name, color, distance), distance <= MAX_COLOR_DISTANCE);
+    }
+    double brightnessDifference = Math.abs(expectedColors.get("averageBrightness").asDouble() - actualColors.get("averageBrightness").asDouble());
+    assertTrue(String.format("%s: brightness differs by %.2f", name, brightnessDifference), brightnessDifference <= MAX_BRIGHTNESS_DIFFERENCE);
+  }
+
+  private static double colorDistance(JsonNode first, JsonNode second) {
+    double r = first.get("r").asDouble() - second.get("r").asDouble();
+    double g = first.get("g").asDouble() - second.get("g").asDouble();
+    double b = first.get("b").asDouble() - second.get("b").asDouble();
+    return Math.sqrt(r * r + g * g + b * b);
+  }
+}
@@ -0,0 +1,206 @@
+package spotify.playback.data.visual.color;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.selbi.colorfetch.data.ColorFetchResult;
+import spotify.playback.data.help.SharedHttpClient;
+
+public class ExternalColorProviderTest {
+  private static final List<String> IMAGE_URLS = List.of(
+    "https://i.scdn.co/image/first",
+    "https://i.scdn.co/image/second",
+    "https://i.scdn.co/image/third");
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final AtomicInteger batchRequests = new AtomicInteger();
+  private final AtomicInteger singleRequests = new AtomicInteger();
+
+  private final CountDownLatch firstResultReceived = new CountDownLatch(1);
+  private final AtomicBoolean batchResponseCompleted = new AtomicBoolean();
+  private final AtomicBoolean completedBeforeFirstResult = new AtomicBoolean();
+
+  private HttpServer stubServer;
+  private int batchResponseStatus;
+  private int batchResultLimit;
+  private boolean delayAfterFirstBatchResult;
+
+  @Before
+  public void startStubServer() throws IOException {
+    batchResponseStatus = 200;
+    batchResultLimit = Integer.MAX_VALUE;
+    delayAfterFirstBatchResult = false;
+    stubServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    stubServer.createContext("/color", this::handleSingleRequest);
+    stubServer.createContext("/batch", this::handleBatchRequest);
+    stubServer.start();
+  }
+
+  @After
+  public void stopStubServer() {
+    stubServer.stop(0);
+  }
+
+  /**
+   * Every image gets its own brightness, so that each result can be traced back to its URL.
+   */
+  private static double brightnessOf(String imageUrl) {
+    return (IMAGE_URLS.indexOf(imageUrl) + 1) / 10.0;
+  }
+
+  private ObjectNode colorsOf(String imageUrl) {
+    ObjectNode colors = objectMapper.createObjectNode();
+    colors.put("averageBrightness", brightnessOf(imageUrl));
+    return colors;
+  }
+
+  private void handleSingleRequest(HttpExchange exchange) throws IOException {
+    singleRequests.incrementAndGet();
+    String imageUrl = null;
+    for (String parameter : exchange.getRequestURI().getRawQuery().split("&")) {
+      if (parameter.startsWith("url=")) {
+        imageUrl = URLDecoder.decode(parameter.substring("url=".length()), StandardCharsets.UTF_8);
+      }
+    }
+    respond(exchange, 200, colorsOf(imageUrl).toString());
+  }
+
+  private void handleBatchRequest(HttpExchange exchange) throws IOException {
+    batchRequests.incrementAndGet();
+    if (batchResponseStatus != 200) {
+      respond(exchange, batchResponseStatus, "");
+      return;
+    }
+    JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+    exchange.sendResponseHeaders(200, 0);
+    try (OutputStream responseBody = exchange.getResponseBody()) {
+      int count = 0;
+      for (JsonNode url : request.get("urls")) {
+        if (count++ < batchResultLimit) {
+          ObjectNode result = objectMapper.createObjectNode();
+          result.put("url", url.asText());
+          result.set("colors", colorsOf(url.asText()));
+          responseBody.write((result + "\n").getBytes(StandardCharsets.UTF_8));
+          responseBody.flush();
+          if (count == 1 && delayAfterFirstBatchResult) {
+            // Hold back the rest of the response until the client has handled the first line
+            awaitFirstResult();
+          }
+        }
+      }
+      batchResponseCompleted.set(true);
+    }
+  }
+
+  private void awaitFirstResult() throws IOException {
+    try {
+      firstResultReceived.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private void respond(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(status, bytes.length > 0 ? bytes.length : -1);
+    try (OutputStream responseBody = exchange.getResponseBody()) {
+      responseBody.write(bytes);
+    }
+  }
+
+  private Map<String, ColorFetchResult> fetchColors(boolean withBatchUrl) {
+    String baseUrl = "http://localhost:" + stubServer.getAddress().getPort();
+    SharedHttpClient sharedHttpClient = new SharedHttpClient(4, 1000, 5000);
+    ExternalColorProvider colorProvider = new ExternalColorProvider(baseUrl + "/color", withBatchUrl ? baseUrl + "/batch" : null, sharedHttpClient);
+
+    Map<String, ColorFetchResult> results = new ConcurrentHashMap<>();
+    colorProvider.getDominantColorsFromImageUrls(IMAGE_URLS, (imageUrl, colors) -> {
+      if (results.isEmpty()) {
+        completedBeforeFirstResult.set(batchResponseCompleted.get());
+      }
+      results.put(imageUrl, colors);
+      firstResultReceived.countDown();
+    });
+    return results;
+  }
+
+  private void assertColorsOfAllImages(Map<String, ColorFetchResult> results) {
+    assertEquals(IMAGE_URLS.size(), results.size());
+    for (String imageUrl : IMAGE_URLS) {
+      ColorFetchResult colors = results.get(imageUrl);
+      assertNotEquals(ColorFetchResult.FALLBACK, colors);
+      assertEquals("Wrong colors for " + imageUrl, brightnessOf(imageUrl), colors.getAverageBrightness(), 0.0001);
+    }
+  }
+
+  ///////////////////////////////
+
+  @Test
+  public void testBatchRequestForMultipleImages() {
+    Map<String, ColorFetchResult> results = fetchColors(true);
+    assertColorsOfAllImages(results);
+    assertEquals(1, batchRequests.get());
+    assertEquals(0, singleRequests.get());
+  }
+
+  @Test
+  public void testMissingBatchResultsAreRequestedIndividually() {
+    batchResultLimit = 1;
+    Map<String, ColorFetchResult> results = fetchColors(true);
+    assertColorsOfAllImages(results);
+    assertEquals(1, batchRequests.get());
+    assertEquals(IMAGE_URLS.size() - 1, singleRequests.get());
+  }
+
+  @Test
+  public void testFailedBatchRequestFallsBackToSingleRequests() {
+    batchResponseStatus = 404;
+    Map<String, ColorFetchResult> results = fetchColors(true);
+    assertColorsOfAllImages(results);
+    assertEquals(1, batchRequests.get());
+    assertEquals(IMAGE_URLS.size(), singleRequests.get());
+  }
+
+  @Test
+  public void testSingleRequestsWithoutBatchUrl() {
+    Map<String, ColorFetchResult> results = fetchColors(false);
+    assertColorsOfAllImages(results);
+    assertEquals(0, batchRequests.get());
+    assertEquals(IMAGE_URLS.size(), singleRequests.get());
+  }
+
+  @Test
+  public void testBatchResultsArePassedOnWhileStreaming() {
+    delayAfterFirstBatchResult = true;
+    Map<String, ColorFetchResult> results = fetchColors(true);
+    assertFalse("The first result was only passed on after the whole response was received", completedBeforeFirstResult.get());
+    assertTrue(batchResponseCompleted.get());
+    assertColorsOfAllImages(results);
+    assertEquals(0, singleRequests.get());
+  }
+}